@@ -0,0 +1,3 @@
+del /s /q *.class
+javac src/bench/Benchmark.java -cp src
+java -classpath src bench.Benchmark %*
\ No newline at end of file
@@ -1,3 +1,3 @@
 del /s /q *.class
 javac src/main/Driver.java -cp src
-java -classpath src main.Driver %1 bot
\ No newline at end of file
+java -classpath src main.Driver %1 bot %2
\ No newline at end of file
@@ -0,0 +1,279 @@
+package bench;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import reader.FileReader;
+import reader.MapData;
+import solver.DeadlockDetector;
+import solver.Expander;
+import solver.Heuristic;
+import solver.Level;
+import solver.Node;
+import solver.SearchLimits;
+import solver.SearchMode;
+import solver.SokoBot;
+import solver.SolverResult;
+import solver.StateArena;
+import solver.TranspositionTable;
+
+/**
+ * Measures the hot paths of the solver on every map under maps/ so that a slower change shows up as a lower number.
+ * Every benchmark runs a few warmup iterations for the JIT and then a few measured ones, and reports the operations
+ * per second and the bytes allocated per operation by the benchmark thread. The solve benchmark also reports the
+ * nodes expanded per solve and how the search ended.
+ *
+ * Usage: Benchmark [-warmup n] [-iterations n] [-time ms] [-limit ms] [map names...]
+ */
+public class Benchmark {
+  private static final int SAMPLE_SIZE = 2000;
+
+  private int warmups = 2;
+  private int iterations = 5;
+  private long iterationTime = 1000;
+  private long solveLimit = 15000;
+
+  private long sink = 0; // keeps the results of a benchmark alive so the JIT cannot remove the work
+
+  private interface Workload {
+    // Runs the benchmark once and returns the number of operations done
+    long run();
+  }
+
+  public static void main(String[] args) {
+    Benchmark benchmark = new Benchmark();
+    ArrayList<String> maps = new ArrayList<String>();
+
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-warmup") && i + 1 < args.length) {
+        benchmark.warmups = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-iterations") && i + 1 < args.length) {
+        benchmark.iterations = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("-time") && i + 1 < args.length) {
+        benchmark.iterationTime = Long.parseLong(args[++i]);
+      } else if (args[i].equals("-limit") && i + 1 < args.length) {
+        benchmark.solveLimit = Long.parseLong(args[++i]);
+      } else {
+        maps.add(args[i]);
+      }
+    }
+
+    if (maps.isEmpty()) {
+      String[] files = new File("maps").list();
+      if (files == null) {
+        System.err.println("No maps folder found, run the benchmark from the project folder");
+        System.exit(1);
+      }
+      Arrays.sort(files);
+      for (String file : files) {
+        if (file.endsWith(".txt")) {
+          maps.add(file.substring(0, file.length() - 4));
+        }
+      }
+    }
+
+    System.out.printf("%-12s %-10s %14s %12s %12s %12s%n", "map", "benchmark", "ops/s", "B/op", "MB/s", "expanded");
+    for (String map : maps) {
+      MapData mapData = new FileReader().readFile(map);
+      if (mapData == null) {
+        continue;
+      }
+      benchmark.run(map, mapData);
+    }
+    System.out.println("(" + benchmark.sink + ")");
+  }
+
+  // Runs every benchmark on one map
+  private void run(String name, MapData mapData) {
+    final char[][] map = mapData.getMapData();
+    final char[][] items = mapData.getItemsData();
+    final int width = mapData.columns;
+    final int height = mapData.rows;
+
+    final Expander expander = new Expander(new Level(height, width, map), SearchMode.PUSHES);
+    final Level level = expander.getLevel();
+    final Node[] sample = sample(expander, items);
+    final ArrayList<Node> children = new ArrayList<Node>();
+
+    report(name, "expand", measure(new Workload() {
+      public long run() {
+        for (Node node : sample) {
+          children.clear();
+          expander.expand(node, children);
+          sink += children.size();
+        }
+        return sample.length;
+      }
+    }), -1);
+
+    report(name, "hash", measure(new Workload() {
+      public long run() {
+        for (int i = 0; i < sample.length; i++) {
+          sink += sample[i].hashCode();
+          if (sample[i].equals(sample[(i + 1) % sample.length])) {
+            sink++;
+          }
+        }
+        return sample.length;
+      }
+    }), -1);
+
+    report(name, "table", measure(new Workload() {
+      public long run() {
+        TranspositionTable table = new TranspositionTable();
+        for (Node node : sample) {
+          table.add(node);
+        }
+        for (Node node : sample) {
+          if (table.contains(node)) {
+            sink++;
+          }
+        }
+        return sample.length;
+      }
+    }), -1);
+
+    report(name, "arena", measure(new Workload() {
+      public long run() {
+        StateArena arena = new StateArena(sample[0].getBoxes().length);
+        for (Node node : sample) {
+          arena.add(node, StateArena.NONE);
+        }
+        for (Node node : sample) {
+          if (arena.contains(node)) {
+            sink++;
+          }
+        }
+        return sample.length;
+      }
+    }), -1);
+
+    final Heuristic heuristic = new Heuristic(level);
+    report(name, "heuristic", measure(new Workload() {
+      public long run() {
+        for (Node node : sample) {
+          sink += heuristic.estimate(node.getBoxes());
+        }
+        return sample.length;
+      }
+    }), -1);
+
+    final DeadlockDetector deadlocks = new DeadlockDetector(level);
+    report(name, "deadlock", measure(new Workload() {
+      public long run() {
+        long checks = 0;
+        for (Node node : sample) {
+          int[] boxes = node.getBoxes();
+          for (int box : boxes) {
+            for (int direction = 0; direction < Level.MOVES.length; direction++) {
+              int destination = level.step(box, direction);
+              if (!level.isWall(destination) && !node.hasBox(destination)) {
+                if (deadlocks.isDeadlocked(boxes, box, destination)) {
+                  sink++;
+                }
+                checks++;
+              }
+            }
+          }
+        }
+        return checks;
+      }
+    }), -1);
+
+    solve(name, width, height, map, items);
+  }
+
+  // Measures whole searches, stopping after the warmup if the map is not solved within the limit
+  private void solve(String name, final int width, final int height, final char[][] map, final char[][] items) {
+    final SokoBot bot = new SokoBot();
+    final SolverResult[] last = new SolverResult[1];
+    Workload workload = new Workload() {
+      public long run() {
+        last[0] = bot.solve(width, height, map, items, new SearchLimits().withTimeLimit(solveLimit));
+        sink += last[0].getPath().length();
+        return 1;
+      }
+    };
+
+    workload.run();
+    if (!last[0].isSolved()) {
+      System.out.printf("%-12s %-10s %14s %12s %12s %12d%n", name, "solve", last[0].getStatus(), "-", "-",
+          last[0].getExpanded());
+      return;
+    }
+
+    report(name, "solve", measure(workload), last[0].getExpanded());
+  }
+
+  // Collects up to SAMPLE_SIZE distinct nodes in breadth first order from the root of the map
+  private Node[] sample(Expander expander, char[][] items) {
+    ArrayList<Node> nodes = new ArrayList<Node>();
+    ArrayDeque<Node> queue = new ArrayDeque<Node>();
+    TranspositionTable seen = new TranspositionTable();
+    ArrayList<Node> children = new ArrayList<Node>();
+
+    Node root = expander.root(items);
+    queue.add(root);
+    seen.add(root);
+    while (!queue.isEmpty() && nodes.size() < SAMPLE_SIZE) {
+      Node node = queue.poll();
+      nodes.add(node);
+
+      children.clear();
+      expander.expand(node, children);
+      for (Node child : children) {
+        if (seen.add(child)) {
+          queue.add(child);
+        }
+      }
+    }
+
+    return nodes.toArray(new Node[nodes.size()]);
+  }
+
+  // Runs the warmup and measured iterations of a benchmark and returns the operations per second and bytes per op
+  private double[] measure(Workload workload) {
+    for (int i = 0; i < warmups; i++) {
+      iterate(workload);
+    }
+
+    long operations = 0, nanos = 0, bytes = 0;
+    for (int i = 0; i < iterations; i++) {
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      operations += iterate(workload);
+      nanos += System.nanoTime() - start;
+      bytes += allocatedBytes() - allocated;
+    }
+
+    double seconds = nanos / 1e9;
+    return new double[] {operations / seconds, (double) bytes / operations, bytes / seconds / (1 << 20)};
+  }
+
+  // Runs a benchmark for at least the time of one iteration
+  private long iterate(Workload workload) {
+    long operations = 0;
+    long end = System.nanoTime() + iterationTime * 1000000;
+    do {
+      operations += workload.run();
+    } while (System.nanoTime() < end);
+    return operations;
+  }
+
+  // gets the bytes allocated so far by this thread, or 0 if the JVM cannot tell
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static void report(String map, String benchmark, double[] result, long expanded) {
+    System.out.printf("%-12s %-10s %14.1f %12.1f %12.1f %12s%n", map, benchmark, result[0], result[1], result[2],
+        expanded < 0 ? "-" : Long.toString(expanded));
+  }
+}
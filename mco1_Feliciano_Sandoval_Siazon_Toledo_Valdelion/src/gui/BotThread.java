@@ -1,30 +1,96 @@
 package gui;
 
+import java.io.IOException;
+
+import solver.SearchLimits;
+import solver.SearchStats;
 import solver.SokoBot;
+import solver.SolutionCache;
+import solver.SolutionListener;
+import solver.SolverResult;
+import solver.SolverStatus;
 
-public class BotThread extends Thread {
+public class BotThread extends Thread implements SolutionListener {
   private SokoBot sokoBot;
   private int width;
   private int height;
   private char[][] mapData;
   private char[][] itemsData;
+  private SearchLimits limits;
+  private SolutionCache solutionCache; // solutions of earlier runs, null to always search
 
-  private String solution = null;
+  private SolverResult result = null;
+  private volatile SolverResult bestSolution = null; // latest solution given by a bot that keeps improving it
 
   public BotThread(int width, int height, char[][] mapData, char[][] itemsData) {
-    sokoBot = new SokoBot();
+    this(new SokoBot(), width, height, mapData, itemsData);
+  }
+
+  public BotThread(SokoBot sokoBot, int width, int height, char[][] mapData, char[][] itemsData) {
+    this(sokoBot, width, height, mapData, itemsData, new SearchLimits());
+  }
+
+  public BotThread(SokoBot sokoBot, int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+    this.sokoBot = sokoBot;
     this.width = width;
     this.height = height;
     this.mapData = mapData;
     this.itemsData = itemsData;
+    this.limits = limits;
+    sokoBot.setSolutionListener(this);
+  }
+
+  public BotThread(SokoBot sokoBot, int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits,
+      SolutionCache solutionCache) {
+    this(sokoBot, width, height, mapData, itemsData, limits);
+    this.solutionCache = solutionCache;
   }
 
   @Override
   public void run() {
-    solution = sokoBot.solveSokobanPuzzle(width, height, mapData, itemsData);
+    long startTime = System.nanoTime();
+    String cached = solutionCache == null ? null : solutionCache.get(width, height, mapData, itemsData);
+    if (cached != null) {
+      // The map was solved from the same start before, no search is needed
+      result = new SolverResult(SolverStatus.SOLVED, cached, 0, System.nanoTime() - startTime);
+      return;
+    }
+
+    result = sokoBot.solve(width, height, mapData, itemsData, limits);
+    if (solutionCache != null && result.isSolved()) {
+      try {
+        solutionCache.put(width, height, mapData, itemsData, result.getPath());
+      } catch (IOException ex) {
+        // The solution is still played, it is only not kept for the next run
+        System.err.println("Cannot store the solution: " + ex.getMessage());
+      }
+    }
+  }
+
+  public void cancel() {
+    limits.cancel();
+  }
+
+  public SolverResult getResult() {
+    return result;
   }
 
   public String getSolution() {
-    return solution;
+    return result == null ? null : result.getPath();
+  }
+
+  public SearchStats getStats() {
+    return sokoBot.getStats();
+  }
+
+  @Override
+  public void solutionFound(SolverResult solution) {
+    bestSolution = solution;
+  }
+
+  // The best solution found while the bot is still searching, null if there is none yet
+  public String getBestSolution() {
+    SolverResult solution = bestSolution;
+    return solution == null ? null : solution.getPath();
   }
 }
@@ -3,6 +3,8 @@ package gui;
 import javax.swing.JFrame;
 import java.awt.GridLayout;
 import reader.MapData;
+import solver.SolutionCache;
+import solver.Strategy;
 
 public class GameFrame extends JFrame {
   private GamePanel mainPanel;
@@ -31,4 +33,12 @@ public class GameFrame extends JFrame {
   public void initiateSolution() {
     this.mainPanel.initiateSolution();
   }
+
+  public void initiateSolution(Strategy strategy) {
+    this.mainPanel.initiateSolution(strategy);
+  }
+
+  public void setSolutionCache(SolutionCache solutionCache) {
+    this.mainPanel.setSolutionCache(solutionCache);
+  }
 }
\ No newline at end of file
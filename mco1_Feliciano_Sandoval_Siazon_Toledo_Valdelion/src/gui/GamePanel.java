@@ -3,6 +3,9 @@ package gui;
 import javax.swing.JPanel;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Transparency;
 import java.awt.event.KeyListener;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
@@ -14,6 +17,12 @@ import java.io.File;
 
 import javax.imageio.ImageIO;
 import reader.MapData;
+import solver.SearchLimits;
+import solver.SearchStats;
+import solver.SolutionCache;
+import solver.SolverResult;
+import solver.SolverStatus;
+import solver.Strategy;
 
 public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
@@ -30,15 +39,22 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
   private BufferedImage CRATE_SPRITE;
   private BufferedImage CRATE_ON_GOAL_SPRITE;
   private BufferedImage PLAYER_SPRITE;
+  private BufferedImage background; // walls and goals of the map, drawn once since they never move
 
   private final int UPPER_LEFT_X = 10;
   private final int UPPER_LEFT_Y = 10;
   private final int TILE_SIZE = 32;
+  private final int STATUS_HEIGHT = 32;
 
   private boolean freePlay = false;
   private boolean waitingForSpace = false;
   private String solutionString = "";
   private int solutionCtr = -1;
+  private char[][] startItems; // items when the bot was started, restored to play an improved solution
+  private int startPlayerRow;
+  private int startPlayerColumn;
+  private int startProgress;
+  private int startMoves;
 
   private Timer animationTimer;
 
@@ -49,6 +65,9 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
   private final String STATUS_WAITING_FOR_SPACE = "Push SPACE to start Bot...";
   private final String STATUS_WAITING_FOR_SOLUTION = "Waiting for solution...";
   private final String STATUS_SOLUTION_TIMEOUT = "TIME'S UP! Bot took too long thinking...";
+  private final String STATUS_UNSOLVABLE = "NO SOLUTION! Bot tried every push...";
+  private final String STATUS_OUT_OF_BUDGET = "OUT OF BUDGET! Bot hit its node or memory limit...";
+  private final String STATUS_STOPPED = "Bot stopped without a solution...";
   private final String STATUS_PLAYING_SOLUTION = "Playing solution...";
   private final String STATUS_FINISHED_PLAYING_SOLUTION = "SOLUTION FINISHED!";
   private final String STATUS_FREE_PLAY = "FREE PLAY MODE!";
@@ -61,7 +80,9 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
   private int goalCount = 0;
   private int playerCount = 0;
 
+  private Strategy strategy = Strategy.ASTAR;
   private BotThread solutionThread;
+  private SolutionCache solutionCache; // solutions of earlier runs, null to always search
   private Timer solutionTimer;
   private Timer checkForSolutionTimer;
   private long solutionStartTime;
@@ -80,16 +101,54 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
   private void loadImages() {
     try {
-      BRICK_SPRITE = ImageIO.read(new File("src/graphics/brick.png"));
-      GOAL_SPRITE = ImageIO.read(new File("src/graphics/goal.png"));
-      CRATE_SPRITE = ImageIO.read(new File("src/graphics/crate.png"));
-      CRATE_ON_GOAL_SPRITE = ImageIO.read(new File("src/graphics/crategoal.png"));
-      PLAYER_SPRITE = ImageIO.read(new File("src/graphics/robot.png"));
+      BRICK_SPRITE = scale(ImageIO.read(new File("src/graphics/brick.png")));
+      GOAL_SPRITE = scale(ImageIO.read(new File("src/graphics/goal.png")));
+      CRATE_SPRITE = scale(ImageIO.read(new File("src/graphics/crate.png")));
+      CRATE_ON_GOAL_SPRITE = scale(ImageIO.read(new File("src/graphics/crategoal.png")));
+      PLAYER_SPRITE = scale(ImageIO.read(new File("src/graphics/robot.png")));
     } catch (Exception ex) {
       ex.printStackTrace(System.err);
     }
   }
 
+  // Copies a sprite to an image of the size of a tile in the format of the screen, so drawing it is a plain copy
+  private BufferedImage scale(BufferedImage sprite) {
+    BufferedImage scaled = createImage(TILE_SIZE, TILE_SIZE, Transparency.TRANSLUCENT);
+    Graphics g = scaled.getGraphics();
+    g.drawImage(sprite, 0, 0, TILE_SIZE, TILE_SIZE, null);
+    g.dispose();
+    return scaled;
+  }
+
+  private BufferedImage createImage(int width, int height, int transparency) {
+    if (GraphicsEnvironment.isHeadless()) {
+      return new BufferedImage(width, height,
+          transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+    return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+        .createCompatibleImage(width, height, transparency);
+  }
+
+  // Draws the walls and goals of the map once, on black like the rest of the panel
+  private BufferedImage createBackground() {
+    BufferedImage image = createImage(Math.max(1, columns * TILE_SIZE), Math.max(1, rows * TILE_SIZE),
+        Transparency.OPAQUE);
+    Graphics g = image.getGraphics();
+    g.setColor(Color.BLACK);
+    g.fillRect(0, 0, image.getWidth(), image.getHeight());
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        if (map[i][j] == '#') {
+          g.drawImage(BRICK_SPRITE, j * TILE_SIZE, i * TILE_SIZE, null);
+        } else if (map[i][j] == '.') {
+          g.drawImage(GOAL_SPRITE, j * TILE_SIZE, i * TILE_SIZE, null);
+        }
+      }
+    }
+    g.dispose();
+    return image;
+  }
+
   public void loadMap(MapData mapData) {
     progress = 0;
     moves = 0;
@@ -149,6 +208,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
     rows = mapData.rows;
     columns = mapData.columns;
+    background = null;
 
     if (playerCount == 1 && boxCount == goalCount && boxCount > 0) {
       freePlay = false;
@@ -161,25 +221,25 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
   public void paintComponent(Graphics g) {
     super.paintComponent(g);
 
-    g.clearRect(0, 0, this.getWidth(), this.getHeight());
-    g.setColor(Color.BLACK);
-    g.fillRect(0, 0, this.getWidth(), this.getHeight());
-
     if (mapLoaded) {
-      for (int i = 0; i < rows; i++) {
-        for (int j = 0; j < columns; j++) {
+      if (background == null) {
+        background = createBackground();
+      }
+      g.drawImage(background, UPPER_LEFT_X, UPPER_LEFT_Y, this);
+
+      // only the tiles inside the area being repainted are drawn, e.g the two or three tiles of a move
+      Rectangle clip = g.getClipBounds();
+      if (clip == null) {
+        clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+      }
+      int firstRow = Math.max(0, Math.floorDiv(clip.y - UPPER_LEFT_Y, TILE_SIZE));
+      int lastRow = Math.min(rows - 1, Math.floorDiv(clip.y + clip.height - 1 - UPPER_LEFT_Y, TILE_SIZE));
+      int firstColumn = Math.max(0, Math.floorDiv(clip.x - UPPER_LEFT_X, TILE_SIZE));
+      int lastColumn = Math.min(columns - 1, Math.floorDiv(clip.x + clip.width - 1 - UPPER_LEFT_X, TILE_SIZE));
+
+      for (int i = firstRow; i <= lastRow; i++) {
+        for (int j = firstColumn; j <= lastColumn; j++) {
           BufferedImage target = null;
-          if (map[i][j] == '#') {
-            target = BRICK_SPRITE;
-          } else if (map[i][j] == '.') {
-            target = GOAL_SPRITE;
-          }
-          if (target != null) {
-            g.drawImage(target, UPPER_LEFT_X + j * TILE_SIZE,
-                UPPER_LEFT_Y + i * TILE_SIZE, TILE_SIZE, TILE_SIZE,
-                this);
-          }
-          target = null;
           if (items[i][j] == '$' && map[i][j] == '.') {
             target = CRATE_ON_GOAL_SPRITE;
           } else if (items[i][j] == '$' && map[i][j] != '.') {
@@ -188,15 +248,13 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
             target = PLAYER_SPRITE;
           }
           if (target != null) {
-            g.drawImage(target, UPPER_LEFT_X + j * TILE_SIZE,
-                UPPER_LEFT_Y + i * TILE_SIZE, TILE_SIZE, TILE_SIZE,
-                this);
+            g.drawImage(target, UPPER_LEFT_X + j * TILE_SIZE, UPPER_LEFT_Y + i * TILE_SIZE, this);
           }
         }
       }
 
       g.setColor(new Color(150, 214, 124));
-      g.fillRect(0, this.getHeight() - 32, this.getWidth(), 32);
+      g.fillRect(0, this.getHeight() - STATUS_HEIGHT, this.getWidth(), STATUS_HEIGHT);
       g.setColor(Color.RED);
       g.setFont(this.statusFont);
       g.drawString(this.statusString, this.getWidth() - 375, this.getHeight() - 12);
@@ -211,6 +269,21 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     }
   }
 
+  // Repaints only the status bar at the bottom of the panel
+  private void repaintStatus() {
+    this.repaint(0, this.getHeight() - STATUS_HEIGHT, this.getWidth(), STATUS_HEIGHT);
+  }
+
+  // Paints the tiles from one tile to another and the status bar right away. Swing would merge the two areas of a
+  // later repaint into one rectangle spanning the whole map, so each is painted on its own
+  private void paintMove(int fromRow, int fromColumn, int toRow, int toColumn) {
+    int row = Math.min(fromRow, toRow);
+    int column = Math.min(fromColumn, toColumn);
+    this.paintImmediately(UPPER_LEFT_X + column * TILE_SIZE, UPPER_LEFT_Y + row * TILE_SIZE,
+        (Math.abs(toColumn - fromColumn) + 1) * TILE_SIZE, (Math.abs(toRow - fromRow) + 1) * TILE_SIZE);
+    this.paintImmediately(0, this.getHeight() - STATUS_HEIGHT, this.getWidth(), STATUS_HEIGHT);
+  }
+
   public void initiateFreePlay() {
     this.statusString = STATUS_FREE_PLAY;
     waitingForSpace = false;
@@ -223,6 +296,15 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     freePlay = false;
   }
 
+  public void initiateSolution(Strategy strategy) {
+    this.strategy = strategy;
+    initiateSolution();
+  }
+
+  public void setSolutionCache(SolutionCache solutionCache) {
+    this.solutionCache = solutionCache;
+  }
+
   // 0 - Up, 1 - down, 2 - left, 3 - right
   private void executeMove(int direction) {
     int ptRow = -1;
@@ -260,6 +342,10 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     if (map[ptRow][ptCol] == '#') {
       return;
     }
+    int fromRow = playerRow;
+    int fromCol = playerColumn;
+    int toRow = ptRow;
+    int toCol = ptCol;
     if (items[ptRow][ptCol] != '$') {
       items[playerRow][playerColumn] = ' ';
       items[ptRow][ptCol] = '@';
@@ -279,6 +365,8 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         progress--;
       }
       items[btRow][btCol] = '$';
+      toRow = btRow;
+      toCol = btCol;
       items[playerRow][playerColumn] = ' ';
       items[ptRow][ptCol] = '@';
       playerRow = ptRow;
@@ -287,7 +375,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
     moves++;
 
-    this.repaint();
+    paintMove(fromRow, fromCol, toRow, toCol);
   }
 
   @Override
@@ -314,15 +402,24 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
         char[][] mapDataCopy = new char[rows][columns];
         char[][] itemsDataCopy = new char[rows][columns];
+        startItems = new char[rows][columns];
 
         for (int i = 0; i < rows; i++) {
           for (int j = 0; j < columns; j++) {
             mapDataCopy[i][j] = map[i][j];
             itemsDataCopy[i][j] = items[i][j];
+            startItems[i][j] = items[i][j];
           }
         }
-
-        solutionThread = new BotThread(columns, rows, mapDataCopy, itemsDataCopy);
+        startPlayerRow = playerRow;
+        startPlayerColumn = playerColumn;
+        startProgress = progress;
+        startMoves = moves;
+        solutionString = null;
+
+        SearchLimits limits = new SearchLimits().withTimeLimit(SOLUTION_TIME_LIMIT);
+        solutionThread = new BotThread(strategy.createBot(), columns, rows, mapDataCopy, itemsDataCopy, limits,
+            solutionCache);
         solutionThread.start();
         solutionStartTime = System.nanoTime();
         solutionTimer = new Timer(SOLUTION_TIME_LIMIT, this);
@@ -330,7 +427,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         checkForSolutionTimer = new Timer(30, this);
         checkForSolutionTimer.start();
 
-        this.repaint();
+        repaintStatus();
       }
     }
   }
@@ -354,6 +451,9 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     this.statusString = STATUS_PLAYING_SOLUTION;
     this.solutionString = solutionString;
     this.solutionCtr = 0;
+    if (this.animationTimer != null) {
+      this.animationTimer.stop();
+    }
     this.animationTimer = new Timer(delay, this);
     this.animationTimer.start();
   }
@@ -364,7 +464,7 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
       if (this.solutionCtr >= this.solutionString.length()) {
         this.animationTimer.stop();
         this.statusString = STATUS_FINISHED_PLAYING_SOLUTION;
-        this.repaint();
+        repaintStatus();
         return;
       }
       int nextMove = this.solutionString.charAt(this.solutionCtr++);
@@ -383,24 +483,91 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
           break;
       }
     } else if (e.getSource() == checkForSolutionTimer) {
+      String bestSolution = solutionThread.getBestSolution();
+      if (bestSolution != null && !bestSolution.equals(this.solutionString)) {
+        // The bot is still improving its solution, play the best one so far from the start
+        playFromStart(bestSolution);
+      }
       if (!solutionThread.isAlive()) {
+        SolverResult result = solutionThread.getResult();
+        if (result == null || !result.isSolved()) {
+          // The bot gave up before the timer, the path it got to is not a solution so it is not played
+          solutionNotFound(result == null ? null : result.getStatus());
+          return;
+        }
         // Solution was found
         solutionTimer.stop();
         checkForSolutionTimer.stop();
         String solution = solutionThread.getSolution();
-        this.playSolution(solution);
+        if (!solution.equals(this.solutionString)) {
+          playFromStart(solution);
+        }
       }
       long elapsedSolutionTime = System.nanoTime() - solutionStartTime;
       this.solutionTimeString = String.format("%.2f", elapsedSolutionTime / 1000000000.0) + "s";
-      this.repaint();
+      SearchStats stats = solutionThread.getStats();
+      if (stats != null && solutionThread.isAlive() && this.solutionString == null) {
+        // Once a solution is playing the status says so, even while the bot keeps improving it
+        this.statusString = formatStats(stats);
+      }
+      // Only the timer and the counters changed, the moves paint their own tiles
+      repaintStatus();
     } else if (e.getSource() == solutionTimer) {
       // Solution was not found
-      solutionTimer.stop();
-      checkForSolutionTimer.stop();
-      long elapsedSolutionTime = System.nanoTime() - solutionStartTime;
-      this.solutionTimeString = String.format("%.2f", elapsedSolutionTime / 1000000000.0);
+      solutionNotFound(SolverStatus.TIMED_OUT);
+    }
+  }
+
+  // Expanded nodes, open list size and expansion rate, e.g "12.3k nodes, 4.5k open, 40.1k/s"
+  private String formatStats(SearchStats stats) {
+    return formatCount(stats.getExpanded()) + " nodes, " + formatCount(stats.getOpen()) + " open, "
+        + formatCount((long) stats.getNodesPerSecond()) + "/s";
+  }
+
+  private String formatCount(long count) {
+    if (count >= 1000000) {
+      return String.format("%.1fM", count / 1000000.0);
+    } else if (count >= 1000) {
+      return String.format("%.1fk", count / 1000.0);
+    }
+    return "" + count;
+  }
+
+  // Puts the items back where they were when the bot started and plays a solution
+  private void playFromStart(String solution) {
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        items[i][j] = startItems[i][j];
+      }
+    }
+    playerRow = startPlayerRow;
+    playerColumn = startPlayerColumn;
+    progress = startProgress;
+    moves = startMoves;
+    this.repaint();
+    this.playSolution(solution);
+  }
+
+  // Stops the bot and says why it found no solution, status is null if the bot failed
+  private void solutionNotFound(SolverStatus status) {
+    solutionTimer.stop();
+    checkForSolutionTimer.stop();
+    solutionThread.cancel();
+    if (this.solutionString != null) {
+      // The best solution found before the bot stopped keeps playing
+      return;
+    }
+    long elapsedSolutionTime = System.nanoTime() - solutionStartTime;
+    this.solutionTimeString = String.format("%.2f", elapsedSolutionTime / 1000000000.0);
+    if (status == SolverStatus.TIMED_OUT) {
       this.statusString = STATUS_SOLUTION_TIMEOUT;
-      this.repaint();
+    } else if (status == SolverStatus.UNSOLVABLE) {
+      this.statusString = STATUS_UNSOLVABLE;
+    } else if (status == SolverStatus.OUT_OF_BUDGET) {
+      this.statusString = STATUS_OUT_OF_BUDGET;
+    } else {
+      this.statusString = STATUS_STOPPED;
     }
+    repaintStatus();
   }
 }
@@ -0,0 +1,299 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import reader.LevelReader;
+import reader.MapData;
+import solver.SearchLimits;
+import solver.SolverResult;
+import solver.Strategy;
+
+/**
+ * Solves many maps without opening a window. The maps are solved at the same time on a fixed number of threads, each
+ * with its own time limit, every solution is played back on its map to check it, and a CSV or JSON report with one
+ * row per map is written in the order the maps were given.
+ *
+ * A file can hold a whole collection of levels in the XSB/.sok format. Its levels are read one at a time while the
+ * levels before them are solved, so only a few levels per thread are in memory at once, and each is reported as
+ * file:title, or file:number if it has no title.
+ *
+ * Usage: BatchSolver [-threads n] [-timeout ms] [-strategy name] [-format csv|json] [-output file] maps...
+ * where every map is a map file, a folder of map files, or the name of a map under maps/
+ */
+public class BatchSolver {
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private long timeout = 15000;
+  private Strategy strategy = Strategy.ASTAR;
+  private boolean json = false;
+
+  private static class Report {
+    private String map;
+    private String status;
+    private boolean valid;
+    private long time;
+    private long expanded;
+    private long frontier;
+    private int length;
+  }
+
+  public static void main(String[] args) {
+    BatchSolver batch = new BatchSolver();
+    ArrayList<File> files = new ArrayList<File>();
+    String output = null;
+
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-threads") && i + 1 < args.length) {
+          batch.threads = Math.max(1, Integer.parseInt(args[++i]));
+        } else if (args[i].equals("-timeout") && i + 1 < args.length) {
+          batch.timeout = Long.parseLong(args[++i]);
+        } else if (args[i].equals("-strategy") && i + 1 < args.length) {
+          batch.strategy = strategy(args[++i]);
+        } else if (args[i].equals("-format") && i + 1 < args.length) {
+          batch.json = args[++i].equalsIgnoreCase("json");
+        } else if (args[i].equals("-output") && i + 1 < args.length) {
+          output = args[++i];
+        } else {
+          addMaps(files, args[i]);
+        }
+      }
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.exit(1);
+    }
+
+    if (files.isEmpty()) {
+      System.err.println("Usage: BatchSolver [-threads n] [-timeout ms] [-strategy name] [-format csv|json] [-output file] maps...");
+      System.exit(1);
+    }
+
+    PrintStream out = System.out;
+    if (output != null) {
+      try {
+        out = new PrintStream(new File(output), "UTF-8");
+      } catch (Exception ex) {
+        System.err.println("Cannot write " + output + ": " + ex.getMessage());
+        System.exit(1);
+      }
+    }
+
+    batch.write(batch.solveAll(files), out);
+    if (out != System.out) {
+      out.close();
+    }
+  }
+
+  // Adds a map file, every map file of a folder, or the map with the given name under maps/
+  private static void addMaps(ArrayList<File> files, String name) throws IllegalArgumentException {
+    File file = new File(name);
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      Arrays.sort(children);
+      for (File child : children) {
+        if (child.isFile() && isMapFile(child.getName())) {
+          files.add(child);
+        }
+      }
+    } else if (file.isFile()) {
+      files.add(file);
+    } else if (new File("maps/" + name + ".txt").isFile()) {
+      files.add(new File("maps/" + name + ".txt"));
+    } else {
+      throw new IllegalArgumentException("Unknown map " + name);
+    }
+  }
+
+  private static boolean isMapFile(String name) {
+    String lower = name.toLowerCase();
+    return lower.endsWith(".txt") || lower.endsWith(".xsb") || lower.endsWith(".sok");
+  }
+
+  private static Strategy strategy(String name) throws IllegalArgumentException {
+    try {
+      return Strategy.valueOf(name.toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unknown strategy " + name + ", expected one of " + Arrays.toString(Strategy.values()));
+    }
+  }
+
+  // Solves every level of every file on the thread pool and returns the reports in the order of the levels
+  private ArrayList<Report> solveAll(ArrayList<File> files) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ArrayDeque<Future<Report>> futures = new ArrayDeque<Future<Report>>();
+    ArrayDeque<String> names = new ArrayDeque<String>();
+    ArrayList<Report> reports = new ArrayList<Report>();
+
+    for (File file : files) {
+      try (LevelReader reader = new LevelReader(file.toPath())) {
+        // one level is read ahead to tell a collection from a file with a single level
+        MapData level = reader.next();
+        boolean collection = false;
+        if (level == null) {
+          reports.add(error(name(file)));
+        }
+        while (level != null) {
+          MapData next = reader.next();
+          collection |= next != null;
+          String name = !collection ? name(file)
+              : name(file) + ":" + (level.name != null ? level.name : String.valueOf(reader.getCount() - 1));
+          MapData mapData = level;
+          futures.add(executor.submit(() -> solve(name, mapData)));
+          names.add(name);
+
+          // the reader waits while every thread has a level queued
+          while (futures.size() > 2 * threads) {
+            reports.add(collect(futures.poll(), names.poll()));
+          }
+          level = next;
+        }
+      } catch (IOException ex) {
+        System.err.println("Cannot read " + file + ": " + ex.getMessage());
+        reports.add(error(name(file)));
+      }
+    }
+    while (!futures.isEmpty()) {
+      reports.add(collect(futures.poll(), names.poll()));
+    }
+
+    executor.shutdown();
+    return reports;
+  }
+
+  // Waits for the report of a level
+  private static Report collect(Future<Report> future, String name) {
+    try {
+      Report report = future.get();
+      System.err.println(report.map + ": " + report.status + " in " + report.time + " ms");
+      return report;
+    } catch (InterruptedException | ExecutionException ex) {
+      return error(name);
+    }
+  }
+
+  private static Report error(String name) {
+    Report report = new Report();
+    report.map = name;
+    report.status = "ERROR";
+    return report;
+  }
+
+  // Solves one map and checks its solution
+  private Report solve(String name, MapData mapData) {
+    Report report = new Report();
+    report.map = name;
+
+    char[][] map = mapData.getMapData();
+    char[][] items = mapData.getItemsData();
+    SolverResult result = strategy.createBot().solve(mapData.columns, mapData.rows, map, items,
+        new SearchLimits().withTimeLimit(timeout));
+
+    report.status = result.getStatus().toString();
+    report.valid = result.isSolved() && isSolution(map, items, result.getPath());
+    report.time = result.getElapsed() / 1000000;
+    report.expanded = result.getExpanded();
+    report.frontier = result.getFrontier();
+    report.length = result.isSolved() ? result.getPath().length() : 0;
+    return report;
+  }
+
+  // Plays a path on a copy of the map and checks that every move is legal and every goal ends up with a box
+  private static boolean isSolution(char[][] map, char[][] itemsData, String path) {
+    char[][] items = new char[itemsData.length][];
+    int playerRow = -1;
+    int playerColumn = -1;
+    for (int i = 0; i < items.length; i++) {
+      items[i] = itemsData[i].clone();
+      for (int j = 0; j < items[i].length; j++) {
+        if (items[i][j] == '@') {
+          playerRow = i;
+          playerColumn = j;
+        }
+      }
+    }
+
+    for (int k = 0; k < path.length(); k++) {
+      int rowStep = 0;
+      int columnStep = 0;
+      switch (path.charAt(k)) {
+        case 'u':
+          rowStep = -1;
+          break;
+        case 'd':
+          rowStep = 1;
+          break;
+        case 'l':
+          columnStep = -1;
+          break;
+        case 'r':
+          columnStep = 1;
+          break;
+        default:
+          return false;
+      }
+
+      int row = playerRow + rowStep;
+      int column = playerColumn + columnStep;
+      if (map[row][column] == '#') {
+        return false;
+      }
+      if (items[row][column] == '$') {
+        int boxRow = row + rowStep;
+        int boxColumn = column + columnStep;
+        if (map[boxRow][boxColumn] == '#' || items[boxRow][boxColumn] == '$') {
+          return false;
+        }
+        items[boxRow][boxColumn] = '$';
+      }
+      items[playerRow][playerColumn] = ' ';
+      items[row][column] = '@';
+      playerRow = row;
+      playerColumn = column;
+    }
+
+    for (int i = 0; i < map.length; i++) {
+      for (int j = 0; j < map[i].length; j++) {
+        if (map[i][j] == '.' && items[i][j] != '$') {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void write(ArrayList<Report> reports, PrintStream out) {
+    if (json) {
+      out.println("[");
+      for (int i = 0; i < reports.size(); i++) {
+        Report report = reports.get(i);
+        out.printf("  {\"map\": \"%s\", \"status\": \"%s\", \"valid\": %b, \"timeMs\": %d, \"expanded\": %d, "
+            + "\"peakFrontier\": %d, \"length\": %d}%s%n", escape(report.map), report.status, report.valid,
+            report.time, report.expanded, report.frontier, report.length, i + 1 < reports.size() ? "," : "");
+      }
+      out.println("]");
+    } else {
+      out.println("map,status,valid,time_ms,expanded,peak_frontier,length");
+      for (Report report : reports) {
+        out.printf("%s,%s,%b,%d,%d,%d,%d%n", report.map.replace(",", ""), report.status, report.valid, report.time,
+            report.expanded, report.frontier, report.length);
+      }
+    }
+  }
+
+  private static String name(File file) {
+    String name = file.getName();
+    return isMapFile(name) ? name.substring(0, name.length() - 4) : name;
+  }
+
+  private static String escape(String text) {
+    return text.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -1,18 +1,32 @@
 package main;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 import gui.GameFrame;
 import reader.FileReader;
 import reader.MapData;
+import solver.SolutionCache;
+import solver.Strategy;
 
 public class Driver {
   public static void main(String[] args) {
     if (args.length < 2) {
-      System.err.println("Usage: Driver <map name> <mode>");
+      System.err.println("Usage: Driver <map name> <mode> [strategy]");
       System.exit(1);
     }
 
     String mapName = args[0];
     String mode = args[1];
+    Strategy strategy = Strategy.ASTAR;
+    if (args.length > 2) {
+      try {
+        strategy = Strategy.valueOf(args[2].toUpperCase());
+      } catch (IllegalArgumentException ex) {
+        System.err.println("Unknown strategy " + args[2] + ", expected one of " + Arrays.toString(Strategy.values()));
+        System.exit(1);
+      }
+    }
 
     FileReader fileReader = new FileReader();
     MapData mapData = fileReader.readFile(mapName);
@@ -22,7 +36,22 @@ public class Driver {
     if (mode.equals("fp")) {
       gameFrame.initiateFreePlay();
     } else if (mode.equals("bot")) {
-      gameFrame.initiateSolution();
+      try {
+        SolutionCache solutionCache = SolutionCache.open(SolutionCache.DEFAULT_DIRECTORY);
+        // The window ends the program when it is closed, the hook then writes the cache out and releases its lock
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            solutionCache.close();
+          } catch (IOException ex) {
+            System.err.println("The solution cache was not closed: " + ex.getMessage());
+          }
+        }, "solution cache"));
+        gameFrame.setSolutionCache(solutionCache);
+      } catch (IOException ex) {
+        // Another window may hold the cache, the bot then searches every time
+        System.err.println("Solutions of earlier runs are not used: " + ex.getMessage());
+      }
+      gameFrame.initiateSolution(strategy);
     }
   }
 }
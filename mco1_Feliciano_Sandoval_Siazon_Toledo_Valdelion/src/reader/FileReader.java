@@ -1,41 +1,26 @@
 package reader;
 
 import java.io.File;
-import java.util.Scanner;
 
 public class FileReader {
+  // Reads a map file, or the map with the given name under maps/
   public MapData readFile(String keyword) {
-    int rows = 0;
-    int columns = 0;
-    char tiles[][] = new char[100][100];
-    for (int i = 0; i < 100; i++) {
-      for (int j = 0; j < 100; j++) {
-        tiles[i][j] = ' ';
-      }
-    }
+    File file = new File(keyword);
+    return readFile(file.isFile() ? file : new File("maps/" + keyword + ".txt"));
+  }
 
-    try {
-      File file = new File("maps/" + keyword + ".txt");
-      Scanner scanner = new Scanner(file);
-      while (scanner.hasNext()) {
-        String nextLine = scanner.nextLine();
-        columns = Math.max(columns, nextLine.length());
-        for (int i = 0; i < nextLine.length(); i++) {
-          tiles[rows][i] = nextLine.charAt(i);
-        }
-        rows++;
+  // Reads the first level of a file, sized to its board
+  public MapData readFile(File file) {
+    try (LevelReader reader = new LevelReader(file.toPath())) {
+      MapData result = reader.next();
+      if (result == null) {
+        result = new MapData();
+        result.tiles = new char[0][0];
       }
-      scanner.close();
+      return result;
     } catch (Exception ex) {
       ex.printStackTrace(System.out);
       return null;
     }
-
-    MapData result = new MapData();
-    result.tiles = tiles;
-    result.rows = rows;
-    result.columns = columns;
-
-    return result;
   }
 }
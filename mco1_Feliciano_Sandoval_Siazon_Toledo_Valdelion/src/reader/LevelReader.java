@@ -0,0 +1,136 @@
+package reader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Reads the levels of a file one at a time, in the XSB/.sok format used by level collections: every level is a block
+ * of board lines, and the lines around the boards are comments, titles or blank. A file with a single board, like
+ * the maps under maps/, is a collection of one level.
+ *
+ * Only the lines of the level being read are kept, so a collection of any size can be read with the memory of its
+ * largest level, and every level is sized to its own board.
+ */
+public class LevelReader implements Closeable {
+  private static final String TITLE = "title:";
+
+  private BufferedReader input;
+  private String pending; // first line not handled yet, null at the end of the file
+  private int count; // number of levels read so far
+
+  public LevelReader(Path path) throws IOException {
+    // every byte is a character in ISO-8859-1, so comments in any encoding cannot make the reader fail
+    this.input = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1);
+    this.pending = input.readLine();
+  }
+
+  // Reads the next level, or returns null if there are no levels left
+  public MapData next() throws IOException {
+    String name = null;
+    String title = null;
+    String line = pending;
+    pending = null;
+
+    // the last comment before the board names the level, unless it has a title
+    while (line != null && !isBoard(line)) {
+      String text = comment(line);
+      if (isTitle(text)) {
+        title = text.substring(TITLE.length()).trim();
+      } else if (!text.isEmpty()) {
+        name = text;
+      }
+      line = input.readLine();
+    }
+    if (line == null) {
+      return null;
+    }
+
+    ArrayList<String> board = new ArrayList<String>();
+    int columns = 0;
+    while (line != null && isBoard(line)) {
+      line = stripTrailing(line);
+      board.add(line);
+      columns = Math.max(columns, line.length());
+      line = input.readLine();
+    }
+
+    // the title, author and other fields of a .sok level follow its board, any other line belongs to the next level
+    while (line != null && isField(line)) {
+      if (isTitle(line.trim())) {
+        title = line.trim().substring(TITLE.length()).trim();
+      }
+      line = input.readLine();
+    }
+    pending = line;
+
+    MapData result = new MapData();
+    result.rows = board.size();
+    result.columns = columns;
+    result.tiles = new char[result.rows][columns];
+    for (int i = 0; i < result.rows; i++) {
+      String row = board.get(i);
+      for (int j = 0; j < columns; j++) {
+        char tile = j < row.length() ? row.charAt(j) : ' ';
+        result.tiles[i][j] = tile == '-' || tile == '_' ? ' ' : tile;
+      }
+    }
+    result.name = title != null && !title.isEmpty() ? title : name;
+    count++;
+
+    return result;
+  }
+
+  // The number of levels read so far
+  public int getCount() {
+    return count;
+  }
+
+  // A board line has at least one wall and nothing but squares, with '-' or '_' for floor
+  private static boolean isBoard(String line) {
+    boolean wall = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '#') {
+        wall = true;
+      } else if (c != ' ' && c != '.' && c != '$' && c != '*' && c != '@' && c != '+' && c != '-' && c != '_') {
+        return false;
+      }
+    }
+    return wall;
+  }
+
+  // A field is a line like "Author: name" right after a board
+  private static boolean isField(String line) {
+    String text = line.trim();
+    int colon = text.indexOf(':');
+    return colon > 0 && !text.startsWith(";") && text.substring(0, colon).matches("[A-Za-z-]+");
+  }
+
+  private static boolean isTitle(String text) {
+    return text.regionMatches(true, 0, TITLE, 0, TITLE.length());
+  }
+
+  // The text of a line without the ';' that starts a comment
+  private static String comment(String line) {
+    String text = line.trim();
+    return text.startsWith(";") ? text.substring(1).trim() : text;
+  }
+
+  private static String stripTrailing(String line) {
+    int end = line.length();
+    while (end > 0 && line.charAt(end - 1) == ' ') {
+      end--;
+    }
+    return line.substring(0, end);
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+}
@@ -4,6 +4,7 @@ public class MapData {
   public char[][] tiles;
   public int rows;
   public int columns;
+  public String name; // title of the level in its collection, null if it has none
 
   public void print() {
     for (int i = 0; i < rows; i++) {
@@ -13,4 +14,48 @@ public class MapData {
       System.out.println();
     }
   }
+
+  // The immovable parts of the map, i.e walls and goals, in the form the bot takes
+  public char[][] getMapData() {
+    char[][] map = new char[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        switch (tiles[i][j]) {
+          case '#':
+            map[i][j] = '#';
+            break;
+          case '.':
+          case '+':
+          case '*':
+            map[i][j] = '.';
+            break;
+          default:
+            map[i][j] = ' ';
+        }
+      }
+    }
+    return map;
+  }
+
+  // The movable parts of the map, i.e the player and the boxes, in the form the bot takes
+  public char[][] getItemsData() {
+    char[][] items = new char[rows][columns];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < columns; j++) {
+        switch (tiles[i][j]) {
+          case '@':
+          case '+':
+            items[i][j] = '@';
+            break;
+          case '$':
+          case '*':
+            items[i][j] = '$';
+            break;
+          default:
+            items[i][j] = ' ';
+        }
+      }
+    }
+    return items;
+  }
 }
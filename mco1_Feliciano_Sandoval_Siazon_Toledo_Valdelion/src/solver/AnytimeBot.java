@@ -0,0 +1,196 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Searches with anytime repairing A* (ARA*): a weighted A* with a large weight on the heuristic cost finds a first
+ * solution quickly, and the search then goes on with smaller and smaller weights until the weight is one and the
+ * solution has the lowest cost, or until the limits stop it. Every solution with fewer moves than the ones before it
+ * is given to the <code>SolutionListener</code> at once, and the search returns the solution with the fewest moves
+ * even when its limits stop it.
+ *
+ * <p>The states expanded and the lowest cost each was reached with are kept from one weight to the next, so the
+ * search does not start over. A state reached more cheaply after it was expanded with the current weight is set
+ * aside and only expanded again with the next weight, and states whose actual cost plus heuristic cost cannot beat
+ * the last solution are dropped. When searching box pushes, every solution has fewer pushes than the one before
+ * it but may walk more, so the one with the fewest moves is kept.</p>
+ */
+public class AnytimeBot extends SokoBot {
+    // weights of the actual and heuristic cost, from the first search to the last one
+    private static final int[][] WEIGHTS = {{1, 5}, {1, 3}, {1, 2}, {2, 3}, {4, 5}, {1, 1}};
+
+    private SearchMode mode;// whether a node is one player step or one box push
+    private DeadlockDetector deadlocks;// prunes pushes into deadlocks, kept to read its counters after a search
+
+    /**
+     * Constructor for a bot that searches box pushes
+     */
+    public AnytimeBot() {
+        this(SearchMode.PUSHES);
+    }
+
+    /**
+     * Constructor for a bot with a chosen search mode, searching moves makes every solution have fewer moves
+     * @param mode whether a node is one player step or one box push
+     */
+    public AnytimeBot(SearchMode mode) {
+        super(mode);
+        this.mode = mode;
+    }
+
+    /**
+     * Searches the map with decreasing weights until the solution has the lowest cost or the limits stop the search
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation of the search
+     * @return the best solution found, or how the search ended with the best partial path if none was found
+     */
+    @Override
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+
+        Level level = LevelCache.shared().get(height, width, mapData);
+        Expander expander = new Expander(level, mode, heuristic(level));
+        deadlocks = expander.getDeadlocks();
+        Node root = expander.root(itemsData);
+        Node closest = root;// expanded node with the lowest heuristic cost, returned if no solution is found
+        int start = root.getPlayer();
+        StateArena states = new StateArena(root.getBoxes().length);// lowest cost and parent of every expanded state
+        int[] expandedIn = new int[1024];// the last weight every state was expanded with, plus one
+        ArrayList<Node> inconsistent = new ArrayList<Node>();// states reached more cheaply after their expansion
+        ArrayList<Node> children = new ArrayList<Node>();
+        SearchStats counters = new SearchStats();// only read by this thread, copies are published
+        int frontier = 0;// largest size of the open list
+        SolverResult best = null;// solution with the fewest moves so far
+        SolverStatus stop = null;
+
+        counters.initialEstimate = root.getHeuristicCost();
+        OpenList openList = new OpenList(new CostCompare(WEIGHTS[0][0], WEIGHTS[0][1]));
+        if (!root.isUnsolvable()) {
+            openList.add(root);
+        }
+
+        for (int round = 0; round < WEIGHTS.length && stop == null; round++) {
+            if (round > 0) {
+                //the nodes left are ordered again with the smaller weight, with the nodes set aside
+                OpenList next = new OpenList(new CostCompare(WEIGHTS[round][0], WEIGHTS[round][1]));
+                while (!openList.isEmpty()) {
+                    offer(next, openList.poll(), counters);
+                }
+                for (Node node : inconsistent) {
+                    offer(next, node, counters);
+                }
+                inconsistent.clear();
+                openList = next;
+            }
+
+            while (!openList.isEmpty()) {
+                stop = limits.check(counters.expanded);
+                if (stop != null) {
+                    break;
+                }
+                frontier = Math.max(frontier, openList.size() + inconsistent.size());
+
+                Node node = openList.poll();
+                if (best != null && node.priorityCosts() >= counters.solutionCost) {
+                    counters.pruned++;//cannot lead to a cheaper solution
+                    continue;
+                }
+
+                int seen = states.find(node);
+                if (seen != StateArena.NONE && expandedIn[seen] == round + 1 && states.getCost(seen) <= node.getActualCost()) {
+                    counters.duplicates++;//reached more cheaply while the node waited in the open list
+                    continue;
+                }
+
+                if (node.goalFound()) {
+                    int goal = states.add(node, node.getParent());
+                    expandedIn = fit(expandedIn, goal);
+                    String path = expander.path(states, goal, start);
+                    if (best == null || path.length() < best.getPath().length()) {
+                        //a solution with fewer pushes can still walk more, only a shorter one is played
+                        counters.solutionCost = node.getActualCost();//the bound of the pruning is the cost of the played solution
+                        best = new SolverResult(SolverStatus.SOLVED, path, counters.expanded, System.nanoTime() - startTime, frontier);
+                        improve(best);
+                    }
+                    break;//the next weight starts from the nodes left
+                }
+
+                int handle = states.add(node, node.getParent());
+                node.setHandle(handle);
+                expandedIn = fit(expandedIn, handle);
+                expandedIn[handle] = round + 1;
+                counters.expanded++;
+                if (node.getHeuristicCost() < closest.getHeuristicCost()) {
+                    closest = node;
+                }
+
+                children.clear();
+                expander.expand(node, children);
+                counters.generated += children.size();
+
+                for (Node child : children) {
+                    seen = states.find(child);
+                    if (child.isUnsolvable() || (best != null && child.priorityCosts() >= counters.solutionCost)) {
+                        counters.pruned++;
+                    } else if (seen != StateArena.NONE && states.getCost(seen) <= child.getActualCost()) {
+                        counters.duplicates++;
+                    } else if (seen != StateArena.NONE && expandedIn[seen] == round + 1) {
+                        inconsistent.add(child);//expanded again with the next weight
+                    } else {
+                        offer(openList, child, counters);
+                    }
+                }
+
+                if ((counters.expanded & SAMPLE_MASK) == 0) {
+                    publish(sample(counters, openList, inconsistent, states, startTime));
+                }
+            }
+        }
+
+        publish(sample(counters, openList, inconsistent, states, startTime));
+        if (best != null) {
+            return new SolverResult(SolverStatus.SOLVED, best.getPath(), counters.expanded, System.nanoTime() - startTime, frontier);
+        }
+        String path = expander.path(states, closest.getHandle(), start);
+        return new SolverResult(stop == null ? SolverStatus.UNSOLVABLE : stop, path, counters.expanded, System.nanoTime() - startTime, frontier);
+    }
+
+    //Grows an array indexed by handles so that it holds a handle
+    private static int[] fit(int[] array, int handle) {
+        return handle < array.length ? array : Arrays.copyOf(array, Math.max(handle + 1, array.length * 2));
+    }
+
+    //Adds a node to an open list unless the same state is already in it as cheaply
+    private void offer(OpenList openList, Node node, SearchStats counters) {
+        Node open = openList.get(node);
+
+        if (open == null) {
+            openList.add(node);
+        } else if (node.isCheaperThan(open)) {
+            openList.replace(open, node);
+        } else {
+            counters.duplicates++;
+        }
+    }
+
+    //Copies the counters of a search with the current sizes of its lists
+    private SearchStats sample(SearchStats counters, OpenList openList, ArrayList<Node> inconsistent, StateArena states, long startTime) {
+        counters.open = openList.size() + inconsistent.size();
+        counters.closed = states.size();
+        return counters.snapshot(System.nanoTime() - startTime, deadlocks.getTotalPrunes());
+    }
+
+    /**
+     * gets the deadlock detector of the last search, which counts the pushes each deadlock rule pruned
+     * @return deadlock detector or null if no search was made
+     */
+    @Override
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
+    }
+}
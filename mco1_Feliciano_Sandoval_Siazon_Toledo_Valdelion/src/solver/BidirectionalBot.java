@@ -0,0 +1,245 @@
+package solver;
+
+import java.util.ArrayList;
+
+/**
+ * Searches forward with box pushes from the start and backward with box pulls from every solved state at the same
+ * time, always expanding the side with the smaller open list. Both sides represent the player by the smallest cell
+ * it can reach, so a state is the same on both sides, and the search ends as soon as one side expands a state the
+ * other side has already reached. The path is the pushes of the forward side up to that state followed by the
+ * pulls of the backward side played in reverse as pushes.
+ *
+ * <p>The backward side estimates the pulls left with the same matching as the forward side, but matches the boxes
+ * to the cells they started on. Levels where the boxes have to go through a long corridor into a goal room are
+ * searched from both ends instead of only from the start. The solution is found quickly but is not always the
+ * shortest one.</p>
+ */
+public class BidirectionalBot extends SokoBot {
+    private DeadlockDetector deadlocks;// the detector of the forward side, the backward side does not use one
+
+    /**
+     * Constructor for a bidirectional bot
+     */
+    public BidirectionalBot() {
+        super(SearchMode.PUSHES);
+    }
+
+    /**
+     * Searches the map from the start and from the solved states until the two searches meet
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation of the search
+     * @return how the search ended with the solution or the best partial path
+     */
+    @Override
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+
+        Level level = LevelCache.shared().get(height, width, mapData);
+        Expander pushes = new Expander(level, SearchMode.PUSHES, heuristic(level));
+        Node root = pushes.root(itemsData);
+        int[] boxes = root.getBoxes();
+        deadlocks = pushes.getDeadlocks();
+
+        if (boxes.length != level.getTargets().length || boxes.length == 0) {
+            //the solved states are only known when every target gets a box
+            SolverResult result = super.solve(width, height, mapData, itemsData, limits);
+            deadlocks = super.getDeadlocks();
+            return result;
+        }
+
+        int[][] starts = new int[boxes.length][];
+        for (int i = 0; i < boxes.length; i++) {
+            starts[i] = level.pushDistances(boxes[i]);
+        }
+        Side ahead = new Side(pushes, boxes.length);
+        Side behind = new Side(new Expander(level, SearchMode.PULLS, new Heuristic(starts)), boxes.length);
+
+        int start = root.getPlayer();
+        Node closest = root;// forward node with the lowest heuristic cost, returned if the search stops early
+        SearchStats counters = new SearchStats();// only read by this thread, copies are published
+        int frontier = 0;// largest size of both open lists
+        SolverResult result = null;
+
+        counters.initialEstimate = root.getHeuristicCost();
+        ahead.open.add(root);
+        for (Node goal : goals(level, behind.expander)) {
+            behind.open.add(goal);
+        }
+
+        while (result == null && !ahead.open.isEmpty() && !behind.open.isEmpty()) {
+            SolverStatus stop = limits.check(counters.expanded);
+            if (stop != null) {
+                String path = ahead.expander.path(ahead.closed, closest.getHandle(), start);
+                result = new SolverResult(stop, path, counters.expanded, System.nanoTime() - startTime, frontier);
+                break;
+            }
+            frontier = Math.max(frontier, ahead.open.size() + behind.open.size());
+
+            Side side = ahead.open.size() <= behind.open.size() ? ahead : behind;
+            Side other = side == ahead ? behind : ahead;
+            Node node = side.open.poll();
+            node.setHandle(side.closed.add(node, node.getParent()));
+            counters.expanded++;
+
+            if (side == ahead && node.goalFound()) {
+                counters.solutionCost = node.getActualCost();
+                String path = ahead.expander.path(ahead.closed, node.getHandle(), start);
+                result = new SolverResult(SolverStatus.SOLVED, path, counters.expanded, System.nanoTime() - startTime, frontier);
+                break;
+            }
+
+            int meet = other.closed.find(node);
+            if (meet == StateArena.NONE) {
+                Node open = other.open.get(node);//the other side may have reached the state without expanding it
+                if (open != null) {
+                    meet = other.closed.add(open, open.getParent());
+                }
+            }
+            if (meet != StateArena.NONE) {
+                int forward = side == ahead ? node.getHandle() : meet;
+                int backward = side == ahead ? meet : node.getHandle();
+                counters.solutionCost = ahead.closed.getCost(forward) + behind.closed.getCost(backward);
+                String path = stitch(level, ahead, forward, behind, backward, start);
+                result = new SolverResult(SolverStatus.SOLVED, path, counters.expanded, System.nanoTime() - startTime, frontier);
+                break;
+            }
+
+            if (side == ahead && node.getHeuristicCost() < closest.getHeuristicCost()) {
+                closest = node;
+            }
+            side.expand(node, counters);
+
+            if ((counters.expanded & SAMPLE_MASK) == 0) {
+                publish(sample(counters, ahead, behind, startTime));
+            }
+        }
+
+        if (result == null) {
+            String path = ahead.expander.path(ahead.closed, closest.getHandle(), start);
+            result = new SolverResult(SolverStatus.UNSOLVABLE, path, counters.expanded, System.nanoTime() - startTime, frontier);
+        }
+        publish(sample(counters, ahead, behind, startTime));
+        return result;
+    }
+
+    //Creates a solved state for every separate region the player can be in once every target has a box
+    private ArrayList<Node> goals(Level level, Expander backward) {
+        int[] targets = level.getTargets();
+        Reachability reachability = new Reachability(level);
+        boolean[] seen = new boolean[level.getSize()];
+        ArrayList<Node> goals = new ArrayList<Node>();
+
+        for (int cell = 0; cell < level.getSize(); cell++) {
+            if (level.isWall(cell) || level.isGoal(cell) || seen[cell]) {
+                continue;
+            }
+
+            int player = reachability.fill(targets, cell);
+            for (int other = 0; other < level.getSize(); other++) {
+                seen[other] |= reachability.isReachable(other);
+            }
+
+            char[][] items = new char[level.getHeight()][level.getWidth()];
+            for (int i = 0; i < level.getHeight(); i++) {
+                for (int j = 0; j < level.getWidth(); j++) {
+                    int at = level.cell(i, j);
+                    items[i][j] = at == player ? '@' : level.isGoal(at) ? '$' : ' ';
+                }
+            }
+
+            Node goal = backward.root(items);
+            if (!goal.isUnsolvable()) {
+                goals.add(goal);
+            }
+        }
+
+        return goals;
+    }
+
+    //Joins the forward path up to the meeting state with the pulls of the backward side played as pushes
+    private String stitch(Level level, Side ahead, int forward, Side behind, int backward, int start) {
+        StringBuilder path = new StringBuilder(ahead.expander.path(ahead.closed, forward, start));
+        Reachability reachability = new Reachability(level);
+        int player = start;
+        for (int i = 0; i < path.length(); i++) {
+            player = level.step(player, Level.direction(path.charAt(i)));//a macro move can end anywhere near its box
+        }
+
+        for (int state = backward; behind.closed.getParent(state) != StateArena.NONE; state = behind.closed.getParent(state)) {
+            //the pull moved a box one square, so pushing it back from the square beyond undoes the pull
+            int direction = Level.direction(behind.closed.getMove(state));
+            int box = level.step(behind.closed.getPushedBox(state), direction);
+            int stand = level.step(box, direction);
+
+            String walk = reachability.walk(behind.closed.getBoxes(state), player, stand);
+            if (walk == null) {
+                throw new IllegalStateException("The player cannot walk from cell " + player + " to undo the pull of the box on cell " + box);
+            }
+            path.append(walk);
+            path.append(Level.MOVES[Level.opposite(direction)]);
+            player = box;
+        }
+
+        return path.toString();
+    }
+
+    //Copies the counters of both sides with the current sizes of their lists
+    private SearchStats sample(SearchStats counters, Side ahead, Side behind, long startTime) {
+        counters.open = ahead.open.size() + behind.open.size();
+        counters.closed = ahead.closed.size() + behind.closed.size();
+        return counters.snapshot(System.nanoTime() - startTime, deadlocks.getTotalPrunes());
+    }
+
+    /**
+     * gets the deadlock detector of the forward side of the last search
+     * @return deadlock detector or null if no search was made
+     */
+    @Override
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
+    }
+
+    /**
+     * One direction of the search with its own open list and expanded states
+     */
+    private static class Side {
+        private Expander expander;
+        private OpenList open = new OpenList(new CostCompare());
+        private StateArena closed;
+        private ArrayList<Node> children = new ArrayList<Node>();
+
+        private Side(Expander expander, int boxCount) {
+            this.expander = expander;
+            this.closed = new StateArena(boxCount);
+        }
+
+        //Adds the children of a node to the open list unless their state was already reached as cheaply
+        private void expand(Node node, SearchStats counters) {
+            children.clear();
+            expander.expand(node, children);
+            counters.generated += children.size();
+
+            for (Node child : children) {
+                if (child.isUnsolvable()) {
+                    counters.pruned++;
+                } else if (closed.contains(child)) {
+                    counters.duplicates++;
+                } else {
+                    Node other = open.get(child);
+
+                    if (other == null) {
+                        open.add(child);
+                    } else if (child.isCheaperThan(other)) {
+                        open.replace(other, child);
+                    } else {
+                        counters.duplicates++;
+                    }
+                }
+            }
+        }
+    }
+}
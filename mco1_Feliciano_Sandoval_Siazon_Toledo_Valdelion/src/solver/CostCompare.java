@@ -3,17 +3,47 @@ package solver;
 import java.util.Comparator;
 
 /**
- * This java class uses the <code>Comparator</code> interface to be used in the <code>PriorityQueue</code> class by comparing the priority cost of each node
+ * This java class uses the <code>Comparator</code> interface to be used in the <code>OpenList</code> class by comparing the priority cost of each node.
+ * Nodes with the same priority cost are ordered by their heuristic cost so the node closer to the goal is expanded first,
+ * and then by the steps the player walked so the push-level search prefers the shorter of two equal solutions.
  */
 public class CostCompare implements Comparator<Node>{
+    private int costWeight, heuristicWeight;// weights of the actual and heuristic cost in the priority
+
+    /**
+     * Constructor for the A* ordering, the priority is the sum of the actual cost and heuristic cost
+     */
+    public CostCompare() {
+        this(1, 1);
+    }
+
+    /**
+     * Constructor for a weighted ordering, e.g (1, 3) for weighted A* or (0, 1) for greedy best-first search
+     * @param costWeight weight of the actual cost
+     * @param heuristicWeight weight of the heuristic cost
+     */
+    public CostCompare(int costWeight, int heuristicWeight) {
+        this.costWeight = costWeight;
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    //gets the weighted priority of a node
+    private int priority(Node node) {
+        return costWeight * node.getActualCost() + heuristicWeight * node.getHeuristicCost();
+    }
+
     @Override
     public int compare(Node n1, Node n2){
-        if (n1.priorityCosts() > n2.priorityCosts()) {
+        if (priority(n1) > priority(n2)) {
             return 1;
-        } else if (n1.priorityCosts() < n2.priorityCosts()){
+        } else if (priority(n1) < priority(n2)){
             return -1;
         }
 
-        return 0;
+        if (n1.getHeuristicCost() != n2.getHeuristicCost()) {
+            return Integer.compare(n1.getHeuristicCost(), n2.getHeuristicCost());
+        }
+
+        return Integer.compare(n1.getWalked(), n2.getWalked());
     }
 }
@@ -0,0 +1,172 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Checks if a push leaves the boxes in a state that can never be solved. Only the squares around the box that was
+ * just pushed are looked at, since every other box was already checked when it was pushed. The rules are checked
+ * from cheapest to most expensive:
+ * <ul>
+ *     <li>dead square - the box can never reach a target from its square</li>
+ *     <li>block - the box is part of a 2x2 square of boxes and walls with a box that is not on a target</li>
+ *     <li>freeze - the box can no longer move along either axis, and it or a box blocking it is not on a target</li>
+ * </ul>
+ * Each rule counts the pushes it pruned. One detector should only be used by one search at a time.
+ */
+public class DeadlockDetector {
+    private static final int NOT_FROZEN = -1, FROZEN_ON_TARGETS = 0, FROZEN_OFF_TARGET = 1;
+
+    private Level level;
+    private int[] boxes;// cells of the boxes before the push
+    private int from, to;// cell of the pushed box before and after the push
+    private boolean[] visiting;// boxes treated as walls while the freeze check is on them
+    private long deadSquarePrunes, blockPrunes, freezePrunes;// number of pushes pruned by each rule
+
+    /**
+     * Constructor for the deadlock detector of a level
+     * @param level the walls and targets of the map
+     */
+    public DeadlockDetector(Level level) {
+        this.level = level;
+        this.visiting = new boolean[level.getSize()];
+    }
+
+    /**
+     * Checks if pushing a box leads to a deadlock
+     * @param boxes cells of the boxes before the push
+     * @param from cell of the pushed box before the push
+     * @param to cell of the pushed box after the push
+     * @return true if the push should be pruned
+     */
+    public boolean isDeadlocked(int[] boxes, int from, int to) {
+        if (level.isDead(to)) {
+            deadSquarePrunes++;
+            return true;
+        }
+
+        this.boxes = boxes;
+        this.from = from;
+        this.to = to;
+
+        if (isBlocked()) {
+            blockPrunes++;
+            return true;
+        }
+        if (frozen(to) == FROZEN_OFF_TARGET) {
+            freezePrunes++;
+            return true;
+        }
+
+        return false;
+    }
+
+    //checks if a cell has a box after the push
+    private boolean hasBox(int cell) {
+        return cell == to || (cell != from && Arrays.binarySearch(boxes, cell) >= 0);
+    }
+
+    //Checks the four 2x2 squares that contain the pushed box
+    private boolean isBlocked() {
+        int right = 1, down = level.getWidth();
+        int[] corners = {to, to - 1, to - level.getWidth(), to - level.getWidth() - 1};
+
+        for (int corner : corners) {
+            int[] square = {corner, corner + right, corner + down, corner + down + right};
+            boolean solid = true, offTarget = false;
+
+            for (int cell : square) {
+                if (hasBox(cell)) {
+                    offTarget |= !level.isGoal(cell);
+                } else if (!level.isWall(cell)) {
+                    solid = false;
+                    break;
+                }
+            }
+
+            if (solid && offTarget) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //Checks if the box on a cell can no longer be moved, treating the boxes being checked as walls
+    private int frozen(int cell) {
+        visiting[cell] = true;
+
+        int vertical = axisBlocked(level.step(cell, 0), level.step(cell, 1));
+        int result = NOT_FROZEN;
+        if (vertical != NOT_FROZEN) {
+            int horizontal = axisBlocked(level.step(cell, 2), level.step(cell, 3));
+            if (horizontal != NOT_FROZEN) {
+                result = level.isGoal(cell) ? Math.max(vertical, horizontal) : FROZEN_OFF_TARGET;
+            }
+        }
+
+        visiting[cell] = false;
+        return result;
+    }
+
+    //Checks if a box cannot move along the axis between two squares
+    private int axisBlocked(int first, int second) {
+        if (level.isWall(first) || level.isWall(second) || visiting[first] || visiting[second]) {
+            return FROZEN_ON_TARGETS;
+        }
+        if (level.isDead(first) && level.isDead(second)) {
+            return FROZEN_ON_TARGETS;//moving along this axis would push the box onto a dead square
+        }
+
+        int result = NOT_FROZEN;
+        if (hasBox(first)) {
+            result = frozen(first);
+        }
+        if (result == NOT_FROZEN && hasBox(second)) {
+            result = frozen(second);
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the counters of another detector to this one, used to sum the detectors of the threads of a search
+     * @param other detector whose counters are added
+     */
+    public void add(DeadlockDetector other) {
+        deadSquarePrunes += other.deadSquarePrunes;
+        blockPrunes += other.blockPrunes;
+        freezePrunes += other.freezePrunes;
+    }
+
+    /**
+     * gets the number of pushes pruned because the box was pushed onto a dead square
+     * @return number of pruned pushes
+     */
+    public long getDeadSquarePrunes() {
+        return deadSquarePrunes;
+    }
+
+    /**
+     * gets the number of pushes pruned because they completed a 2x2 block
+     * @return number of pruned pushes
+     */
+    public long getBlockPrunes() {
+        return blockPrunes;
+    }
+
+    /**
+     * gets the number of pushes pruned because they froze a box that is not on a target
+     * @return number of pruned pushes
+     */
+    public long getFreezePrunes() {
+        return freezePrunes;
+    }
+
+    /**
+     * gets the number of pushes pruned by every rule
+     * @return number of pruned pushes
+     */
+    public long getTotalPrunes() {
+        return deadSquarePrunes + blockPrunes + freezePrunes;
+    }
+}
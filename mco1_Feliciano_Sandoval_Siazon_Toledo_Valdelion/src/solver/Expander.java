@@ -0,0 +1,218 @@
+package solver;
+
+import java.util.ArrayList;
+
+/**
+ * Creates the children of the nodes of one search. It owns the scratch space of the search, i.e the flood fill of
+ * the player, the matching of the heuristic and the deadlock checks, so one expander should only be used by one
+ * thread at a time. Every thread of a parallel search has its own expander over the same <code>Level</code>.
+ */
+public class Expander {
+    private Level level;// the walls and targets of the map
+    private SearchMode mode;// whether a node is one player step or one box push
+    private Reachability reachability;// finds the squares the player can walk to
+    private Heuristic heuristic;// estimates the cost left to solve a state
+    private DeadlockDetector deadlocks;// prunes pushes into deadlocks
+
+    /**
+     * Constructor for the expander of a search
+     * @param level the walls and targets of the map
+     * @param mode whether a node is one player step, one box push or one box pull
+     */
+    public Expander(Level level, SearchMode mode) {
+        this(level, mode, new Heuristic(level));
+    }
+
+    /**
+     * Constructor for the expander of a search with its own heuristic, e.g the backward search which estimates the
+     * pulls left to get the boxes back to where they started
+     * @param level the walls and targets of the map
+     * @param mode whether a node is one player step, one box push or one box pull
+     * @param heuristic estimates the cost left to solve a state
+     */
+    public Expander(Level level, SearchMode mode, Heuristic heuristic) {
+        this.level = level;
+        this.mode = mode;
+        this.reachability = new Reachability(level);
+        this.heuristic = heuristic;
+        this.deadlocks = new DeadlockDetector(level);
+    }
+
+    /**
+     * Creates the root node of the search
+     * @param itemsData the representation of movable objects in the map
+     * @return root node
+     */
+    public Node root(char[][] itemsData) {
+        return new Node(level, itemsData, heuristic);
+    }
+
+    /**
+     * Creates every child of a node that is not in a deadlock
+     * @param node the node being expanded
+     * @param children list the children are added to
+     */
+    public void expand(Node node, ArrayList<Node> children) {
+        if (mode == SearchMode.PUSHES) {
+            pushChildren(node, children);
+        } else if (mode == SearchMode.PULLS) {
+            pullChildren(node, children);
+        } else {
+            moveChildren(node, children);
+        }
+    }
+
+    /**
+     * Rebuilds the move path of a state of this search
+     * @param arena the states of the search
+     * @param handle handle of the last state of the path, or StateArena.NONE for an empty path
+     * @param start cell of the player in the root node
+     * @return string representation of the path taken
+     */
+    public String path(StateArena arena, int handle, int start) {
+        return mode == SearchMode.PUSHES ? reachability.path(arena, handle, start) : arena.moves(handle);
+    }
+
+    //Creates a child for every step the player can take
+    private void moveChildren(Node node, ArrayList<Node> children) {
+        for (char move : Level.MOVES) {//iterate through each movers
+            int direction = Level.direction(move);
+            int next = level.step(node.getPlayer(), direction);
+
+            if (node.isMoveValid(move) &&
+                !(node.hasBox(next) && deadlocks.isDeadlocked(node.getBoxes(), next, level.step(next, direction)))) {//check if move is valid and does not push a box into a deadlock, if not, skip
+                children.add(new Node(node, move, heuristic));//create child
+            }
+        }
+    }
+
+    //Creates a child for every push of a box the player can walk to
+    private void pushChildren(Node node, ArrayList<Node> children) {
+        int[] boxes = node.getBoxes();
+        int[] pushes = new int[boxes.length * Level.MOVES.length];
+        int[] walks = new int[pushes.length];
+        int count = 0;
+
+        //the fill starts where the player stands so it also measures the walk to every push
+        reachability.fill(boxes, node.getStanding());
+        for (int box : boxes) {
+            for (int direction = 0; direction < Level.MOVES.length; direction++) {
+                int behind = level.step(box, Level.opposite(direction));
+                int destination = level.step(box, direction);
+
+                if (reachability.isReachable(behind) && !level.isWall(destination) && !node.hasBox(destination) &&
+                    !deadlocks.isDeadlocked(boxes, box, destination)) {
+                    walks[count] = reachability.distance(behind);
+                    pushes[count++] = box * Level.MOVES.length + direction;
+                }
+            }
+        }
+
+        //the fills of the children overwrite the fill of the parent so the pushes are collected first
+        for (int i = 0; i < count; i++) {
+            int box = pushes[i] / Level.MOVES.length;
+            int direction = pushes[i] % Level.MOVES.length;
+            macro(node, box, direction, walks[i], children);
+        }
+    }
+
+    //Creates the children of a push: the push itself, carried on through the rest of a tunnel it was pushed into, and
+    //if it enters a goal room also the pushes on to the next free target of the room. The entrance of a room can be a
+    //passage or a place to park a box as well, so the push that only reaches the entrance is kept next to the one
+    //carrying the box into the room
+    private void macro(Node node, int box, int direction, int walk, ArrayList<Node> children) {
+        int[] boxes = node.getBoxes();
+        int destination = level.step(box, direction);
+
+        //a push onto the entrance of a goal room from outside is followed by the pushes to the next target of the room
+        int room = level.getEnteredRoom(destination);
+        if (room != Level.NO_ROOM && level.getRoom(box) != room) {
+            int target = -1;
+            for (int cell : level.getFillOrder(room)) {
+                if (!node.hasBox(cell)) {
+                    target = cell;
+                    break;
+                }
+            }
+
+            int[] path = target == -1 ? null : reachability.pushes(boxes, box, direction, target, room);
+            if (path != null && !deadlocks.isDeadlocked(boxes, box, target)) {
+                int standing = level.step(target, Level.opposite(path[path.length - 1]));
+                int player = reachability.fill(boxes, box, target, standing);
+                children.add(new Node(node, box, direction, target, path.length, walk, standing, player, heuristic));
+            }
+        }
+
+        //a box in a tunnel with the player behind it can only be pushed on, unless the player can walk around it
+        int pushes = 1;
+        int player = reachability.fill(boxes, box, destination, box);
+        while (!level.isGoal(destination) && level.isTunnel(destination, direction) && level.isTunnel(level.step(destination, Level.opposite(direction)), direction)) {
+            int next = level.step(destination, direction);
+            if (level.isWall(next) || node.hasBox(next) || reachability.isReachable(next) || deadlocks.isDeadlocked(boxes, box, next)) {
+                break;
+            }
+
+            destination = next;
+            pushes++;
+            player = reachability.fill(boxes, box, destination, level.step(destination, Level.opposite(direction)));
+        }
+
+        children.add(new Node(node, box, direction, destination, pushes, walk, level.step(destination, Level.opposite(direction)), player, heuristic));
+    }
+
+    //Creates a child for every pull of a box the player can walk to, the deadlock rules only hold for pushes so a
+    //pull is only dropped once the heuristic finds a box that can never get back to a start cell
+    private void pullChildren(Node node, ArrayList<Node> children) {
+        int[] boxes = node.getBoxes();
+        int[] pulls = new int[boxes.length * Level.MOVES.length];
+        int[] walks = new int[pulls.length];
+        int count = 0;
+
+        reachability.fill(boxes, node.getStanding());
+        for (int box : boxes) {
+            for (int direction = 0; direction < Level.MOVES.length; direction++) {
+                //the player stands where the box goes and steps back one more square while pulling it
+                int destination = level.step(box, direction);
+                int beyond = level.step(destination, direction);
+
+                if (reachability.isReachable(destination) && !level.isWall(beyond) && !node.hasBox(beyond)) {
+                    walks[count] = reachability.distance(destination);
+                    pulls[count++] = box * Level.MOVES.length + direction;
+                }
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            int box = pulls[i] / Level.MOVES.length;
+            int direction = pulls[i] % Level.MOVES.length;
+            int destination = level.step(box, direction);
+            int standing = level.step(destination, direction);
+            int player = reachability.fill(boxes, box, destination, standing);
+            children.add(new Node(node, box, direction, walks[i], standing, player, heuristic));
+        }
+    }
+
+    /**
+     * gets the level being searched
+     * @return level
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * gets the heuristic, which counts the estimates it found in its cache
+     * @return heuristic
+     */
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * gets the deadlock detector, which counts the pushes each deadlock rule pruned
+     * @return deadlock detector
+     */
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
+    }
+}
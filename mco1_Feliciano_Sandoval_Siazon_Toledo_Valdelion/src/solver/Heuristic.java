@@ -0,0 +1,312 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the cost left to solve a state with a minimum cost matching of boxes to targets. The cost of putting a box
+ * on a target is the push distance from the tables of the <code>Level</code>, which take walls into account, so the
+ * estimate never goes above the real number of pushes. The matching is found with the Hungarian algorithm.
+ *
+ * <p>The children of a node are all built one after the other and each of them moved only one box, so the matching of
+ * the parent is kept and only the row of the moved box is solved again, which takes O(n^2) instead of O(n^3).</p>
+ *
+ * <p>The same box positions are reached many times, e.g by pushing two boxes in either order, so the estimates of the
+ * last states are kept in a small cache keyed on the Zobrist hash of their boxes. The cache has buckets of four
+ * entries, and a full bucket drops the first entry that was not used since the clock hand last passed it. A child
+ * that only walked reuses the estimate of its parent without looking at the cache.</p>
+ *
+ * <p>One heuristic should only be used by one search at a time.</p>
+ */
+public class Heuristic {
+    public static final int INFINITE = Level.UNREACHABLE;// estimate of a state where some box can never reach a target
+
+    private static final int CACHE_BITS = 14, WAYS = 4;// 2^14 buckets of 4 entries
+    private static final int EMPTY = -1;// estimate of an empty cache entry
+
+    private int[][] distances;// cost of getting a box from every cell to each destination
+    private int rows, columns;// number of boxes and targets
+    private int[][] cost;// push distance of every box (row) to every target (column), both counted from 1
+    private int[] u, v, p, way, minv;// row and column potentials, row matched to each column, and search arrays
+    private boolean[] used;
+    private int[] baseU, baseV, baseP;// the matching of the prepared parent
+    private Node prepared;// the parent whose matching is kept
+    private long[] keys;// box hash of every cached estimate
+    private int[] estimates;// cached estimates, EMPTY if the entry is not in use
+    private boolean[] referenced;// set when an entry is used, cleared when the clock hand passes it
+    private byte[] hands;// next entry of every bucket the clock hand looks at
+    private long hits, misses;// estimates found in the cache and estimates solved
+    private PatternDatabase patterns;// exact costs of pairs of boxes, null if the matching is used alone
+
+    /**
+     * Constructor for the heuristic of a level
+     * @param level the walls and targets of the map
+     */
+    public Heuristic(Level level) {
+        this(level.getDistances());
+    }
+
+    /**
+     * Constructor for the heuristic of a level that also looks up the pairs of boxes in a pattern database, and
+     * estimates the larger of the matching and the pattern estimate
+     * @param level the walls and targets of the map
+     * @param patterns pattern database of the level
+     */
+    public Heuristic(Level level, PatternDatabase patterns) {
+        this(level.getDistances());
+        this.patterns = patterns;
+    }
+
+    /**
+     * Constructor for a heuristic that matches the boxes to other destinations than the targets, e.g the cells the
+     * boxes started on for the backward search
+     * @param distances cost of getting a box from every cell to each destination, indexed by destination then cell
+     */
+    public Heuristic(int[][] distances) {
+        this.distances = distances;
+        this.columns = distances.length;
+        this.rows = -1;
+        this.keys = new long[WAYS << CACHE_BITS];
+        this.estimates = new int[WAYS << CACHE_BITS];
+        this.referenced = new boolean[WAYS << CACHE_BITS];
+        this.hands = new byte[1 << CACHE_BITS];
+        Arrays.fill(estimates, EMPTY);
+    }
+
+    /**
+     * Estimates the cost to solve a state from scratch
+     * @param boxes cells of the boxes
+     * @return twice the minimum number of pushes, since a push costs two, or INFINITE
+     */
+    public int estimate(int[] boxes) {
+        prepared = null;
+        return combine(solve(boxes, -1, -1), boxes, -1, -1);
+    }
+
+    /**
+     * Estimates the cost to solve the state reached by pushing one box of a parent node
+     * @param parent the node the box was pushed from
+     * @param index index of the pushed box in the boxes of the parent
+     * @param destination cell of the box after the push
+     * @return twice the minimum number of pushes, since a push costs two, or INFINITE
+     */
+    public int estimate(Node parent, int index, int destination) {
+        int[] boxes = parent.getBoxes();
+        Level level = parent.getLevel();
+        long key = parent.getBoxHash() ^ level.boxKey(boxes[index]) ^ level.boxKey(destination);
+
+        int cached = cached(key);
+        if (cached != EMPTY) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        int estimate = combine(repair(parent, index, destination), boxes, index, destination);
+        remember(key, estimate);
+        return estimate;
+    }
+
+    //Solves the matching of a child by repairing the matching of its parent
+    private int repair(Node parent, int index, int destination) {
+        int[] boxes = parent.getBoxes();
+
+        if (boxes.length != columns) {
+            prepared = null;
+            return solve(boxes, index, destination);//a partial matching cannot be repaired one row at a time
+        }
+
+        if (prepared != parent) {
+            solve(boxes, -1, -1);
+            System.arraycopy(u, 0, baseU, 0, rows + 1);
+            System.arraycopy(v, 0, baseV, 0, columns + 1);
+            System.arraycopy(p, 0, baseP, 0, columns + 1);
+            prepared = parent;
+        }
+
+        System.arraycopy(baseU, 0, u, 0, rows + 1);
+        System.arraycopy(baseV, 0, v, 0, columns + 1);
+        System.arraycopy(baseP, 0, p, 0, columns + 1);
+
+        int row = index + 1;
+        fillRow(row, destination);
+        for (int j = 1; j <= columns; j++) {
+            if (p[j] == row) {
+                p[j] = 0;
+            }
+        }
+
+        //lower the potential of the row so every reduced cost stays at least zero, then match the row again
+        int lowest = Integer.MAX_VALUE;
+        for (int j = 1; j <= columns; j++) {
+            lowest = Math.min(lowest, cost[row][j] - v[j]);
+        }
+        u[row] = lowest;
+        augment(row);
+
+        int result = total();
+        fillRow(row, boxes[index]);//the row is shared by every child of the parent
+        return result;
+    }
+
+    //Takes the larger of the matching and the estimate of the pattern database, both never overestimate
+    private int combine(int matching, int[] boxes, int index, int destination) {
+        if (patterns == null || matching >= INFINITE) {
+            return matching;
+        }
+        return Math.max(matching, patterns.estimate(boxes, index, destination));
+    }
+
+    //gets the cached estimate of a box hash or EMPTY
+    private int cached(long key) {
+        int start = bucket(key) * WAYS;
+        for (int i = start; i < start + WAYS; i++) {
+            if (estimates[i] != EMPTY && keys[i] == key) {
+                referenced[i] = true;
+                return estimates[i];
+            }
+        }
+        return EMPTY;
+    }
+
+    //Caches an estimate, the clock hand of the bucket skips the entries used since it last passed them
+    private void remember(long key, int estimate) {
+        int bucket = bucket(key), start = bucket * WAYS;
+        int hand = hands[bucket];
+        while (referenced[start + hand]) {
+            referenced[start + hand] = false;
+            hand = (hand + 1) % WAYS;
+        }
+
+        keys[start + hand] = key;
+        estimates[start + hand] = estimate;
+        hands[bucket] = (byte) ((hand + 1) % WAYS);
+    }
+
+    //Spreads the bits of the hash so that the bucket depends on the whole key
+    private static int bucket(long key) {
+        key ^= key >>> 32;
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> (64 - CACHE_BITS));
+    }
+
+    /**
+     * gets the number of estimates found in the cache
+     * @return hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * gets the number of estimates that were not cached and had to be solved
+     * @return misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    //Solves the whole matching, optionally with one box moved to another cell
+    private int solve(int[] boxes, int index, int destination) {
+        if (boxes.length > columns) {
+            return INFINITE;
+        }
+        resize(boxes.length);
+
+        for (int i = 1; i <= rows; i++) {
+            fillRow(i, i - 1 == index ? destination : boxes[i - 1]);
+        }
+
+        Arrays.fill(u, 0);
+        Arrays.fill(v, 0);
+        Arrays.fill(p, 0);
+        for (int i = 1; i <= rows; i++) {
+            augment(i);
+        }
+
+        return total();
+    }
+
+    //Makes room for a number of boxes
+    private void resize(int boxes) {
+        if (rows == boxes) {
+            return;
+        }
+
+        rows = boxes;
+        cost = new int[rows + 1][columns + 1];
+        u = new int[rows + 1];
+        baseU = new int[rows + 1];
+        v = new int[columns + 1];
+        baseV = new int[columns + 1];
+        p = new int[columns + 1];
+        baseP = new int[columns + 1];
+        way = new int[columns + 1];
+        minv = new int[columns + 1];
+        used = new boolean[columns + 1];
+    }
+
+    //sets the costs of a row to the push distances of a cell
+    private void fillRow(int row, int cell) {
+        for (int j = 1; j <= columns; j++) {
+            cost[row][j] = distances[j - 1][cell];
+        }
+    }
+
+    //Matches a row by finding the cheapest augmenting path, keeping the potentials feasible
+    private void augment(int row) {
+        p[0] = row;
+        int j0 = 0;
+        Arrays.fill(minv, Integer.MAX_VALUE);
+        Arrays.fill(used, false);
+
+        do {
+            used[j0] = true;
+            int i0 = p[j0], delta = Integer.MAX_VALUE, j1 = 0;
+
+            for (int j = 1; j <= columns; j++) {
+                if (!used[j]) {
+                    int reduced = cost[i0][j] - u[i0] - v[j];
+                    if (reduced < minv[j]) {
+                        minv[j] = reduced;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+            }
+
+            for (int j = 0; j <= columns; j++) {
+                if (used[j]) {
+                    u[p[j]] += delta;
+                    v[j] -= delta;
+                } else {
+                    minv[j] -= delta;
+                }
+            }
+            j0 = j1;
+        } while (p[j0] != 0);
+
+        do {
+            int j1 = way[j0];
+            p[j0] = p[j1];
+            j0 = j1;
+        } while (j0 != 0);
+    }
+
+    //gets the estimate of the current matching
+    private int total() {
+        int sum = 0;
+
+        for (int j = 1; j <= columns; j++) {
+            if (p[j] != 0) {
+                if (cost[p[j]][j] >= Level.UNREACHABLE) {
+                    return INFINITE;
+                }
+                sum += cost[p[j]][j];
+            }
+        }
+
+        return 2 * sum;
+    }
+}
@@ -0,0 +1,185 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Searches box pushes with iterative deepening A* (IDA*). Every round is a depth first search that cuts off the
+ * nodes whose priority cost goes above a threshold, and the next round raises the threshold to the lowest cost that
+ * was cut off. Only the nodes on the current path and their siblings are kept, plus a <code>TranspositionCache</code>
+ * of a fixed size that drops states reached again in the same round at the same or a higher cost, so the memory
+ * used does not grow with the search. The price is that the top of the tree is searched again every round.
+ *
+ * <p>Since the heuristic never overestimates, the first goal found has the lowest cost, the same as for
+ * <code>SokoBot</code>.</p>
+ */
+public class IdaStarBot extends SokoBot {
+    private static final int DEFAULT_CACHE = 1 << 20;// entries of the cache, about 16 MB
+
+    private int cacheEntries;// entries of the cache of every search
+    private DeadlockDetector deadlocks;// prunes pushes into deadlocks, kept to read its counters after a search
+
+    /**
+     * Constructor for a bot with a cache of about a million states
+     */
+    public IdaStarBot() {
+        this(DEFAULT_CACHE);
+    }
+
+    /**
+     * Constructor for a bot with a chosen cache size
+     * @param cacheEntries number of states the cache can hold
+     */
+    public IdaStarBot(int cacheEntries) {
+        super(SearchMode.PUSHES);
+        this.cacheEntries = cacheEntries;
+    }
+
+    /**
+     * Searches the map with rounds of depth first search of increasing cost
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation of the search
+     * @return how the search ended with the solution or the best partial path
+     */
+    @Override
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+
+        Level level = LevelCache.shared().get(height, width, mapData);
+        Expander expander = new Expander(level, SearchMode.PUSHES, heuristic(level));
+        deadlocks = expander.getDeadlocks();
+        Node root = expander.root(itemsData);
+        int start = root.getPlayer();
+        TranspositionCache cache = new TranspositionCache(cacheEntries);
+        CostCompare order = new CostCompare();
+        SearchStats counters = new SearchStats();// only read by this thread, copies are published
+
+        Node[] path = new Node[16];// nodes from the root to the current node
+        ArrayList<ArrayList<Node>> siblings = new ArrayList<ArrayList<Node>>();// children left to visit at every depth
+        Node[] closest = {root};// path to the node with the lowest heuristic cost, returned if the search stops early
+        int depth = 0, deepest = 0;
+        int threshold = root.getHeuristicCost();
+        int round = 0;
+        SolverResult result = null;
+
+        counters.initialEstimate = root.getHeuristicCost();
+        if (root.isUnsolvable()) {
+            threshold = Integer.MAX_VALUE;
+        }
+
+        while (result == null && threshold != Integer.MAX_VALUE) {
+            int next = Integer.MAX_VALUE;// lowest priority cost cut off in this round
+            round++;
+            path[0] = root;
+            depth = 1;
+            boolean entered = true;// the node on top of the path was just added and is not expanded yet
+
+            while (depth > 0) {
+                SolverStatus stop = limits.check(counters.expanded);
+                if (stop != null) {
+                    result = new SolverResult(stop, path(expander, closest, closest.length, start), counters.expanded, System.nanoTime() - startTime, deepest);
+                    break;
+                }
+
+                Node node = path[depth - 1];
+                if (entered) {
+                    entered = false;
+
+                    if (node.priorityCosts() > threshold) {
+                        next = Math.min(next, node.priorityCosts());
+                        depth--;
+                        continue;
+                    }
+                    if (node.goalFound()) {
+                        counters.solutionCost = node.getActualCost();
+                        result = new SolverResult(SolverStatus.SOLVED, path(expander, path, depth, start), counters.expanded, System.nanoTime() - startTime, deepest);
+                        break;
+                    }
+                    int seen = cache.get(node.getHash(), round);
+                    if (seen != TranspositionCache.MISSING && seen <= node.getActualCost()) {
+                        counters.duplicates++;
+                        depth--;
+                        continue;
+                    }
+                    cache.put(node.getHash(), node.getActualCost(), round);
+
+                    if (node.getHeuristicCost() < closest[closest.length - 1].getHeuristicCost()) {
+                        closest = Arrays.copyOf(path, depth);
+                    }
+
+                    while (siblings.size() < depth) {
+                        siblings.add(new ArrayList<Node>());
+                    }
+                    ArrayList<Node> children = siblings.get(depth - 1);
+                    children.clear();
+                    expander.expand(node, children);
+                    counters.expanded++;
+                    counters.generated += children.size();
+                    children.sort(order.reversed());//the best child is taken from the end of the list
+
+                    if ((counters.expanded & SAMPLE_MASK) == 0) {
+                        counters.open = depth;
+                        counters.closed = cache.size();
+                        publish(counters.snapshot(System.nanoTime() - startTime, deadlocks.getTotalPrunes()));
+                    }
+                }
+
+                ArrayList<Node> children = siblings.get(depth - 1);
+                Node child = null;
+                while (!children.isEmpty() && child == null) {
+                    child = children.remove(children.size() - 1);
+                    if (child.isUnsolvable()) {
+                        counters.pruned++;
+                        child = null;
+                    }
+                }
+
+                if (child == null) {
+                    depth--;
+                } else {
+                    if (depth == path.length) {
+                        path = Arrays.copyOf(path, depth * 2);
+                    }
+                    path[depth++] = child;
+                    deepest = Math.max(deepest, depth);
+                    entered = true;
+                }
+            }
+
+            threshold = next;
+        }
+
+        if (result == null) {
+            result = new SolverResult(SolverStatus.UNSOLVABLE, path(expander, closest, closest.length, start), counters.expanded, System.nanoTime() - startTime, deepest);
+        }
+        counters.open = 0;
+        counters.closed = cache.size();
+        publish(counters.snapshot(System.nanoTime() - startTime, deadlocks.getTotalPrunes()));
+        return result;
+    }
+
+    //Rebuilds the moves of a path of nodes by storing it in a small arena
+    private String path(Expander expander, Node[] nodes, int length, int start) {
+        StateArena arena = new StateArena(nodes[0].getBoxes().length);
+        int handle = StateArena.NONE;
+        for (int i = 0; i < length; i++) {
+            int seen = arena.find(nodes[i]);
+            //a state evicted from the cache can be reached twice on the path, the loop between is left out
+            handle = seen != StateArena.NONE ? seen : arena.add(nodes[i], handle);
+        }
+        return expander.path(arena, handle, start);
+    }
+
+    /**
+     * gets the deadlock detector of the last search, which counts the pushes each deadlock rule pruned
+     * @return deadlock detector or null if no search was made
+     */
+    @Override
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
+    }
+}
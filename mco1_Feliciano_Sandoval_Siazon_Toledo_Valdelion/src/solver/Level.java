@@ -0,0 +1,560 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Represents the immovable parts of a map i.e walls and targets. A level is built once per search and
+ * shared by every node of that search, so nodes only need to store where the player and the boxes are.
+ * Squares are addressed by a single cell index which is <code>row * width + column</code>. The level also finds
+ * the tunnels and goal rooms of the map once, which the push-level search uses to push a box several squares in
+ * one move.
+ */
+public class Level {
+    public static final char[] MOVES = {'u', 'd', 'l', 'r'};// the moves in the order of their direction index
+    public static final int UNREACHABLE = 1 << 20;// push distance of a square no box can be pushed to a target from
+    public static final int NO_ROOM = -1;// room of a cell that is not in a goal room
+
+    private int height, width;// height and width of the map
+    private char[][] map;// Representation of the immovable objects in the map
+    private boolean[] walls, goals;// walls and targets indexed by cell
+    private int[] targets;// cells of the targets
+    private int[] offsets;// cell offset of every direction in MOVES
+    private int[][] distances;// pushes needed to get a box from every cell to each target, ignoring other boxes
+    private boolean[] dead;// floor squares a box can never be pushed to a target from
+    private long[] playerKeys, boxKeys;// random Zobrist keys of the player and of a box on every cell
+    private int[] tunnels;// bit 1 << (direction >> 1) is set if a box on the cell has walls on both of its sides
+    private int[] rooms;// goal room of every cell, NO_ROOM if the cell is not in one
+    private int[] entrances;// the only cell every goal room can be entered from
+    private int[] doors;// goal room every cell is the entrance of, NO_ROOM if it is not an entrance
+    private int[][] fillOrders;// targets of every goal room, the farthest from the entrance first
+    private long fingerprint;// hash of the size, walls and targets of the map
+
+    /**
+     * Constructor for the level
+     * @param height height of the map
+     * @param width width of the map
+     * @param mapData the representation of the immovable objects in the map
+     */
+    public Level(int height, int width, char[][] mapData) {
+        this.height = height;
+        this.width = width;
+        this.map = mapData;
+        this.offsets = new int[] {-width, width, -1, 1};
+        this.walls = new boolean[height * width];
+        this.goals = new boolean[height * width];
+        this.fingerprint = fingerprint(height, width, mapData);
+
+        int targetcount = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int cell = cell(i, j);
+                //anything that is not floor, or lies on the border of the map, cannot be stepped on
+                walls[cell] = (mapData[i][j] != ' ' && mapData[i][j] != '.') ||
+                              i == 0 || j == 0 || i == height - 1 || j == width - 1;
+                goals[cell] = mapData[i][j] == '.';
+
+                if (goals[cell]) {
+                    targetcount++;
+                }
+            }
+        }
+
+        this.targets = new int[targetcount];
+        int poscount = 0;
+        for (int cell = 0; cell < height * width; cell++) {
+            if (goals[cell]) {
+                targets[poscount++] = cell;
+            }
+        }
+
+        this.distances = new int[targetcount][];
+        for (int i = 0; i < targetcount; i++) {
+            distances[i] = pullDistances(targets[i]);
+        }
+        this.dead = deadSquares();
+        this.tunnels = tunnels();
+        goalRooms();
+
+        //a fixed seed keeps the hashes of a level the same from run to run
+        Random random = new Random(height * 31L + width);
+        this.playerKeys = new long[height * width];
+        this.boxKeys = new long[height * width];
+        for (int cell = 0; cell < height * width; cell++) {
+            playerKeys[cell] = random.nextLong();
+            boxKeys[cell] = random.nextLong();
+        }
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the layout of a map, i.e which squares are floor, targets or walls, which is
+     * the same for every map with the same walls and targets wherever the player and boxes are
+     * @param height height of the map
+     * @param width width of the map
+     * @param mapData the representation of the immovable objects in the map
+     * @return fingerprint of the layout
+     */
+    public static long fingerprint(int height, int width, char[][] mapData) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ height) * 0x100000001b3L;
+        hash = (hash ^ width) * 0x100000001b3L;
+
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                hash = (hash ^ square(mapData[i][j])) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * gets the kind of a square of the map
+     * @param square character of the square
+     * @return 0 for floor, 1 for a target and 2 for a wall
+     */
+    public static int square(char square) {
+        return square == ' ' ? 0 : square == '.' ? 1 : 2;
+    }
+
+    //Finds the number of pushes needed to get a box from every square to a target, by pulling a box away from it
+    private int[] pullDistances(int target){
+        int[] distance = new int[height * width];
+        int[] queue = new int[height * width];
+        int head = 0, tail = 0;
+
+        Arrays.fill(distance, UNREACHABLE);
+        distance[target] = 0;
+        queue[tail++] = target;
+
+        while (head < tail) {
+            int cell = queue[head++];
+
+            for (int direction = 0; direction < MOVES.length; direction++) {
+                //a box on cell could have been pushed there from the previous cell by a player standing behind it
+                int previous = step(cell, opposite(direction));
+                int behind = step(previous, opposite(direction));
+
+                if (!walls[previous] && !walls[behind] && distance[previous] == UNREACHABLE) {
+                    distance[previous] = distance[cell] + 1;
+                    queue[tail++] = previous;
+                }
+            }
+        }
+
+        return distance;
+    }
+
+    /**
+     * Finds the number of pushes needed to get a box from a cell to every square, ignoring other boxes. Used as the
+     * cost of pulling a box back to where it started in the backward search
+     * @param source cell of the box
+     * @return pushes to every cell, UNREACHABLE if the box can never be pushed there
+     */
+    public int[] pushDistances(int source) {
+        int[] distance = new int[height * width];
+        int[] queue = new int[height * width];
+        int head = 0, tail = 0;
+
+        Arrays.fill(distance, UNREACHABLE);
+        distance[source] = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+            int cell = queue[head++];
+
+            for (int direction = 0; direction < MOVES.length; direction++) {
+                //the box is pushed to the next cell by a player standing behind it
+                int next = step(cell, direction);
+                int behind = step(cell, opposite(direction));
+
+                if (!walls[next] && !walls[behind] && distance[next] == UNREACHABLE) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return distance;
+    }
+
+    //Marks every floor square a box can never be pushed to any target from
+    private boolean[] deadSquares(){
+        boolean[] positions = new boolean[height * width];
+
+        for (int cell = 0; cell < height * width; cell++) {
+            positions[cell] = !walls[cell];
+            for (int[] distance : distances) {
+                if (distance[cell] != UNREACHABLE) {
+                    positions[cell] = false;
+                    break;
+                }
+            }
+        }
+
+        return positions;
+    }
+
+    //Marks the floor squares with walls on both sides of the path of a box pushed through them
+    private int[] tunnels() {
+        int[] axes = new int[height * width];
+
+        for (int cell = 0; cell < height * width; cell++) {
+            if (walls[cell]) {
+                continue;
+            }
+            if (walls[step(cell, 2)] && walls[step(cell, 3)]) {
+                axes[cell] |= 1;//walls on the left and right of a box pushed up or down
+            }
+            if (walls[step(cell, 0)] && walls[step(cell, 1)]) {
+                axes[cell] |= 2;//walls above and below a box pushed left or right
+            }
+        }
+
+        return axes;
+    }
+
+    //Finds the goal rooms, i.e parts of the map that are mostly targets and can only be entered through one cell.
+    //Every floor cell is taken out in turn and each small part it cuts off becomes a room, the smallest parts first
+    //so that a room inside another room is the one kept
+    private void goalRooms() {
+        int size = height * width, floor = 0;
+        for (int cell = 0; cell < size; cell++) {
+            if (!walls[cell]) {
+                floor++;
+            }
+        }
+
+        int[] part = new int[size];// part of the map every cell is in once the entrance is taken out
+        int[] queue = new int[size];
+        ArrayList<int[]> parts = new ArrayList<int[]>();// the entrance followed by the cells of every part
+
+        for (int entrance = 0; entrance < size; entrance++) {
+            if (walls[entrance]) {
+                continue;
+            }
+            Arrays.fill(part, 0);
+            part[entrance] = -1;
+
+            for (int direction = 0; direction < MOVES.length; direction++) {
+                int first = step(entrance, direction);
+                if (walls[first] || part[first] != 0) {
+                    continue;
+                }
+
+                int head = 0, tail = 0, targetcount = 0;
+                part[first] = direction + 1;
+                queue[tail++] = first;
+                while (head < tail) {
+                    int cell = queue[head++];
+                    if (goals[cell]) {
+                        targetcount++;
+                    }
+                    for (int next = 0; next < MOVES.length; next++) {
+                        int neighbour = step(cell, next);
+                        if (!walls[neighbour] && part[neighbour] == 0) {
+                            part[neighbour] = direction + 1;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+
+                if (targetcount > 0 && targetcount * 2 >= tail && tail * 2 < floor) {
+                    int[] cells = new int[tail + 1];
+                    cells[0] = entrance;
+                    System.arraycopy(queue, 0, cells, 1, tail);
+                    parts.add(cells);
+                }
+            }
+        }
+
+        parts.sort((a, b) -> Integer.compare(a.length, b.length));
+        this.rooms = new int[size];
+        this.doors = new int[size];
+        Arrays.fill(rooms, NO_ROOM);
+        Arrays.fill(doors, NO_ROOM);
+        ArrayList<int[]> kept = new ArrayList<int[]>();
+
+        for (int[] cells : parts) {
+            boolean free = true;
+            for (int cell : cells) {
+                free &= rooms[cell] == NO_ROOM && doors[cell] == NO_ROOM;
+            }
+            if (free) {
+                doors[cells[0]] = kept.size();
+                for (int i = 1; i < cells.length; i++) {
+                    rooms[cells[i]] = kept.size();
+                }
+                kept.add(cells);
+            }
+        }
+
+        this.entrances = new int[kept.size()];
+        this.fillOrders = new int[kept.size()][];
+        for (int room = 0; room < kept.size(); room++) {
+            entrances[room] = kept.get(room)[0];
+            fillOrders[room] = fillOrder(room);
+        }
+    }
+
+    //Orders the targets of a room by their walking distance from the entrance, the farthest first
+    private int[] fillOrder(int room) {
+        int[] distance = new int[height * width];
+        int[] queue = new int[height * width];
+        int head = 0, tail = 0, targetcount = 0;
+
+        Arrays.fill(distance, UNREACHABLE);
+        distance[entrances[room]] = 0;
+        queue[tail++] = entrances[room];
+        while (head < tail) {
+            int cell = queue[head++];
+            if (goals[cell] && rooms[cell] == room) {
+                targetcount++;
+            }
+            for (int direction = 0; direction < MOVES.length; direction++) {
+                int next = step(cell, direction);
+                if (rooms[next] == room && distance[next] == UNREACHABLE) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        Integer[] order = new Integer[targetcount];
+        int count = 0;
+        for (int i = 0; i < tail; i++) {
+            if (goals[queue[i]] && rooms[queue[i]] == room) {
+                order[count++] = queue[i];
+            }
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(distance[b], distance[a]));
+
+        int[] cells = new int[targetcount];
+        for (int i = 0; i < targetcount; i++) {
+            cells[i] = order[i];
+        }
+        return cells;
+    }
+
+    /**
+     * gets the cell index of a position in the map
+     * @param row row of the position
+     * @param column column of the position
+     * @return cell index
+     */
+    public int cell(int row, int column) {
+        return row * width + column;
+    }
+
+    /**
+     * gets the row of a cell
+     * @param cell cell index
+     * @return row
+     */
+    public int row(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * gets the column of a cell
+     * @param cell cell index
+     * @return column
+     */
+    public int column(int cell) {
+        return cell % width;
+    }
+
+    /**
+     * gets the cell next to a cell in the given direction
+     * @param cell cell index
+     * @param direction index of the move in MOVES
+     * @return neighbouring cell index
+     */
+    public int step(int cell, int direction) {
+        return cell + offsets[direction];
+    }
+
+    /**
+     * gets the direction opposite of a direction, directions come in the pairs u/d and l/r
+     * @param direction index of the move in MOVES
+     * @return index of the opposite move
+     */
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * gets the index of a move in MOVES
+     * @param move direction of the move
+     * @return direction index or -1 if the move is unknown
+     */
+    public static int direction(char move) {
+        for (int i = 0; i < MOVES.length; i++) {
+            if (MOVES[i] == move) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * gets the Zobrist key of the player standing on a cell
+     * @param cell cell index
+     * @return random 64-bit key
+     */
+    public long playerKey(int cell) {
+        return playerKeys[cell];
+    }
+
+    /**
+     * gets the Zobrist key of a box standing on a cell
+     * @param cell cell index
+     * @return random 64-bit key
+     */
+    public long boxKey(int cell) {
+        return boxKeys[cell];
+    }
+
+    /**
+     * checks if a cell is a wall
+     * @param cell cell index
+     * @return true or false
+     */
+    public boolean isWall(int cell) {
+        return walls[cell];
+    }
+
+    /**
+     * checks if a cell is a target
+     * @param cell cell index
+     * @return true or false
+     */
+    public boolean isGoal(int cell) {
+        return goals[cell];
+    }
+
+    /**
+     * gets the height of the map
+     * @return height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * gets the width of the map
+     * @return width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * gets the number of cells in the map
+     * @return height * width
+     */
+    public int getSize() {
+        return height * width;
+    }
+
+    /**
+     * gets the main map of the level
+     * @return main map
+     */
+    public char[][] getMap() {
+        return map;
+    }
+
+    /**
+     * gets the cells of the targets in the map
+     * @return array of target cells
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * gets the number of pushes needed to get a box from a cell to a target if no other box is in the way
+     * @param target index of the target in the array of targets
+     * @param cell cell of the box
+     * @return number of pushes or UNREACHABLE
+     */
+    public int distance(int target, int cell) {
+        return distances[target][cell];
+    }
+
+    /**
+     * gets the push distances of every target, indexed by target then cell, the arrays are shared and should not
+     * be modified
+     * @return distance tables
+     */
+    public int[][] getDistances() {
+        return distances;
+    }
+
+    /**
+     * checks if a box on a cell can never reach any target, e.g a corner or a wall without targets
+     * @param cell cell index
+     * @return true or false
+     */
+    public boolean isDead(int cell) {
+        return dead[cell];
+    }
+
+    /**
+     * gets the hash of the size, walls and targets of the map
+     * @return fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * checks if a box pushed in a direction through a cell has walls on both of its sides, so the player can
+     * neither walk past it nor push it sideways
+     * @param cell cell index
+     * @param direction index of the push in MOVES
+     * @return true or false
+     */
+    public boolean isTunnel(int cell, int direction) {
+        return (tunnels[cell] & (1 << (direction >> 1))) != 0;
+    }
+
+    /**
+     * gets the goal room a cell is in, the entrance of a room is not part of it
+     * @param cell cell index
+     * @return index of the room or NO_ROOM
+     */
+    public int getRoom(int cell) {
+        return rooms[cell];
+    }
+
+    /**
+     * gets the goal room a cell is the entrance of
+     * @param cell cell index
+     * @return index of the room or NO_ROOM
+     */
+    public int getEnteredRoom(int cell) {
+        return doors[cell];
+    }
+
+    /**
+     * gets the only cell a goal room can be entered from
+     * @param room index of the room
+     * @return cell of the entrance
+     */
+    public int getEntrance(int room) {
+        return entrances[room];
+    }
+
+    /**
+     * gets the targets of a goal room in the order they should get their boxes, the farthest from the entrance
+     * first so that a box never has to pass another box already on a target. The array is shared and should not
+     * be modified
+     * @param room index of the room
+     * @return cells of the targets
+     */
+    public int[] getFillOrder(int room) {
+        return fillOrders[room];
+    }
+}
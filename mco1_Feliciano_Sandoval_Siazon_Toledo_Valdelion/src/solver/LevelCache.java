@@ -0,0 +1,144 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the <code>Level</code> of the maps solved most recently, so solving a map with the same walls and targets
+ * again, e.g from another start, skips building the distance tables, dead squares, tunnels and goal rooms. A level
+ * is never changed once built, so one instance is shared by every search that asks for it, on any thread.
+ *
+ * <p>Maps are told apart by their layout, i.e which squares are walls, targets or floor, and the 64-bit
+ * <code>Level.fingerprint</code> of the layout is used as its hash code. When the cache is full the level used least
+ * recently is dropped.</p>
+ */
+public class LevelCache {
+    private static final LevelCache SHARED = new LevelCache(32);
+
+    private int capacity;// number of levels kept
+    private LinkedHashMap<Layout, Level> levels;// levels in the order they were used, the oldest first
+    private long hits, misses;// number of levels found in the cache and built
+
+    /**
+     * Constructor for an empty cache
+     * @param capacity number of levels kept
+     */
+    public LevelCache(int capacity) {
+        this.capacity = capacity;
+        this.levels = new LinkedHashMap<Layout, Level>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Layout, Level> eldest) {
+                return size() > LevelCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * gets the cache used by the bots
+     * @return shared cache
+     */
+    public static LevelCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * gets the level of a map, building it only if no map with the same layout is cached
+     * @param height height of the map
+     * @param width width of the map
+     * @param mapData the representation of the immovable objects in the map
+     * @return level shared with every other search of the same layout
+     */
+    public Level get(int height, int width, char[][] mapData) {
+        Layout layout = new Layout(height, width, mapData);
+
+        synchronized (this) {
+            Level level = levels.get(layout);
+            if (level != null) {
+                hits++;
+                return level;
+            }
+            misses++;
+        }
+
+        //built outside the lock so other maps are not kept waiting, the level is kept by the cache so it copies the map
+        char[][] copy = new char[height][];
+        for (int i = 0; i < height; i++) {
+            copy[i] = Arrays.copyOf(mapData[i], width);
+        }
+        Level level = new Level(height, width, copy);
+
+        synchronized (this) {
+            Level other = levels.putIfAbsent(layout, level);
+            return other == null ? level : other;//another search may have built the same level meanwhile
+        }
+    }
+
+    /**
+     * Drops every cached level
+     */
+    public synchronized void clear() {
+        levels.clear();
+    }
+
+    /**
+     * gets the number of cached levels
+     * @return size
+     */
+    public synchronized int size() {
+        return levels.size();
+    }
+
+    /**
+     * gets the number of levels found in the cache
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * gets the number of levels built because they were not cached
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The walls and targets of a map, 0 for floor, 1 for a target and 2 for a wall on every square
+     */
+    private static class Layout {
+        private int height, width;
+        private byte[] squares;
+        private long fingerprint;// hash of the size and squares
+
+        private Layout(int height, int width, char[][] mapData) {
+            this.height = height;
+            this.width = width;
+            this.squares = new byte[height * width];
+            this.fingerprint = Level.fingerprint(height, width, mapData);
+
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    squares[i * width + j] = (byte) Level.square(mapData[i][j]);
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (fingerprint ^ (fingerprint >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Layout)) {
+                return false;
+            }
+            Layout other = (Layout) obj;
+            return fingerprint == other.fingerprint && height == other.height && width == other.width &&
+                   Arrays.equals(squares, other.squares);
+        }
+    }
+}
@@ -1,25 +1,30 @@
 package solver;
 
-import java.lang.Math;
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
- * Represents the current/possible states of the game. Goal of the game is to put all boxes in its 
+ * Represents the current/possible states of the game. Goal of the game is to put all boxes in its
  * rightful position, therefore, a state or node should contain the information of the map i.e player position,
- * box position, target position, and the cost of the state. This class is using the comparable interface
- * in order to be used for the priority queue class in searching for the optimal path for the bot.
+ * box position, target position, and the cost of the state. The immovable parts of the map are kept in a
+ * <code>Level</code> shared by every node, so a node only stores the cell of the player and the sorted cells
+ * of the boxes. Walking without pushing reuses the box array of the parent node. Each node also carries a
+ * Zobrist hash of its boxes which is updated in constant time from the parent whenever a box is pushed.
+ * A node does not keep its path or its parent node, only the handle of its parent in the <code>StateArena</code>
+ * of the search and the move from it, so an expanded node can be dropped once its state is stored in the arena.
  */
 public class Node{
-    public static int MAXBOXES = 20;
-
-    private Coordinates player;//Current position of the player in the map
-    private Coordinates[] boxes, target;// Current positions of the boxes and targets in the map
-    private ArrayList<Coordinates> obstacles;// gets the deadlocks in the map
-    private char[][] map, items;//Representation of map and the movable items within it
+    private Level level;// the walls and targets shared by every node
+    private int player;// Current cell of the player in the map
+    private int standing;// cell the player stands on after the last push, the walk to the next push starts there
+    private int[] boxes;// Current cells of the boxes in the map, sorted in ascending order
+    private long boxHash;// Zobrist hash of the box cells
     private int actualCost, heuristicCost;//Costs of this state
-    private int height, width;// height and width of the map
-    private String path;// A string representation of the path taken to get to the current state
+    private int walked;// steps walked without pushing since the root, only counted by the push-level search
+    private int parent;// handle of the state this node was created from, StateArena.NONE for the root node
+    private int handle = StateArena.NONE;// handle of the state of this node once it is stored in an arena
+    private char move;// the move performed on the parent node to get to this node
+    private int pushedBox;// cell the box pushed by the move was on, -1 if no box was pushed
+    private int heapIndex = -1;// slot of the node in the open list, -1 if it is not in one
 
 
     /**
@@ -30,177 +35,193 @@ public class Node{
      * @param itemsData the representation of movable objects in the map
      */
     public Node(int height, int width, char[][] mapData, char[][] itemsData) {
-        this.height = height;
-        this.width = width;
+        this(LevelCache.shared().get(height, width, mapData), itemsData);
+    }
+
+    /**
+     * Constructor for the root node of an already built level
+     * @param level the walls and targets of the map
+     * @param itemsData the representation of movable objects in the map
+     */
+    public Node(Level level, char[][] itemsData) {
+        this(level, itemsData, new Heuristic(level));
+    }
+
+    /**
+     * Constructor for the root node of an already built level
+     * @param level the walls and targets of the map
+     * @param itemsData the representation of movable objects in the map
+     * @param heuristic estimates the cost left to solve the state
+     */
+    public Node(Level level, char[][] itemsData, Heuristic heuristic) {
+        this.level = level;
         this.player = playerPosition(itemsData);
+        this.standing = player;
         this.boxes = boxPosition(itemsData);
-        this.target = targetPosition(mapData);
-        this.map = mapData;
-        this.obstacles = simpleDeadlock();
-        this.items = itemsData;
+        this.boxHash = 0;
+        for (int box : boxes) {
+            boxHash ^= level.boxKey(box);
+        }
         this.actualCost = 0;
-        this.heuristicCost = calculateHeuristicCost();
-        this.path = "";
+        this.heuristicCost = heuristic.estimate(boxes);
+        this.parent = StateArena.NONE;
+        this.pushedBox = -1;
     }
 
     /**
      * Constructor for the child node based on parent nodes desicion
-     * @param height height of the map
-     * @param width width of the map
      * @param parentNode the parent node of the state
-     * @param move the move that was performed
+     * @param move the move that was performed, it should be checked with <code>isMoveValid</code> first
+     * @param heuristic estimates the cost left to solve the state
      */
-    public Node(Node parentNode, char move) {
-        this.height = parentNode.getHeight();
-        this.width = parentNode.getWidth();
-        this.obstacles = parentNode.getobstacles();
+    public Node(Node parentNode, char move, Heuristic heuristic) {
+        this.level = parentNode.getLevel();
         this.actualCost = parentNode.getActualCost() + 1;
-        this.path = parentNode.getPath() + move;
-        this.map = parentNode.getMap();
- 
-        char[][] newMap= newItemState(parentNode, move);
-        this.items = new char[height][width];
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                this.items[i][j] = newMap[i][j];
-            }
+        this.parent = parentNode.getHandle();
+        this.move = move;
+
+        int direction = Level.direction(move);
+        this.player = level.step(parentNode.getPlayer(), direction);
+        this.standing = player;
+        int index = Arrays.binarySearch(parentNode.getBoxes(), player);
+
+        if (index < 0) {
+            this.boxes = parentNode.getBoxes();//no box was pushed so the box positions can be shared
+            this.boxHash = parentNode.getBoxHash();
+            this.pushedBox = -1;
+            this.heuristicCost = parentNode.getHeuristicCost();//the estimate only depends on the boxes
+        } else {
+            int destination = level.step(player, direction);
+            this.actualCost++;
+            this.pushedBox = player;
+            this.boxes = pushBox(parentNode.getBoxes(), index, destination);
+            this.boxHash = parentNode.getBoxHash() ^ level.boxKey(player) ^ level.boxKey(destination);
+            this.heuristicCost = heuristic.estimate(parentNode, index, destination);
         }
-        this.player = playerPosition(this.items);
-        this.boxes = boxPosition(this.items);
-        this.target = parentNode.getTarget();
-
-        this.heuristicCost = calculateHeuristicCost();
     }
 
-    //reads the position of target items
-    private Coordinates[] targetPosition(char[][] mapData){
-        int targetcount = 0, poscount = 0;
-        int[] posX = new int[MAXBOXES], posY = new int[MAXBOXES];
-
-        //checks map for targets
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                if (mapData[i][j] == '.') {
-                   posX[poscount] = i;
-                   posY[poscount] = j;
-                   poscount++;
-
-                   targetcount++;
-                }
-            }
-        }
-
-        //create array of coordinates
-        Coordinates[] positions = new Coordinates[targetcount];
-
-        for (int i = 0; i < poscount; i++) {
-            positions[i] = new Coordinates(posX[i], posY[i]);
-        }
+    /**
+     * Constructor for the child node of the push-level search. The walk before the push is not stored, it is
+     * rebuilt with <code>Reachability.path</code> once the goal is found, only its length is counted so nodes of
+     * the same cost can be told apart by how far the player walked. A push costs the same as it does in the move-level
+     * search. A pull of the backward search is built the same way, since it also moves one box one square in a
+     * direction.
+     * @param parentNode the parent node of the state
+     * @param box cell of the box being pushed, the player must be able to reach the cell behind it
+     * @param direction index of the push in <code>Level.MOVES</code>
+     * @param walk number of steps the player walks before the push
+     * @param standing cell the player stands on right after the push
+     * @param player cell representing every square the player can reach after the push
+     * @param heuristic estimates the cost left to solve the state
+     */
+    public Node(Node parentNode, int box, int direction, int walk, int standing, int player, Heuristic heuristic) {
+        this(parentNode, box, direction, parentNode.getLevel().step(box, direction), 1, walk, standing, player, heuristic);
+    }
 
-        return positions;
+    /**
+     * Constructor for the child node of a macro move, which pushes one box several times at once, e.g through a
+     * tunnel or into a goal room. Only the first push and the cell the box ends on are stored, the pushes in between
+     * are found again with <code>Reachability.pushes</code> when the path is rebuilt
+     * @param parentNode the parent node of the state
+     * @param box cell of the box being pushed, the player must be able to reach the cell behind it
+     * @param direction index of the first push in <code>Level.MOVES</code>
+     * @param destination cell of the box after the last push
+     * @param pushes number of pushes of the move
+     * @param walk number of steps the player walks before the first push
+     * @param standing cell the player stands on right after the last push
+     * @param player cell representing every square the player can reach after the last push
+     * @param heuristic estimates the cost left to solve the state
+     */
+    public Node(Node parentNode, int box, int direction, int destination, int pushes, int walk, int standing, int player, Heuristic heuristic) {
+        this.level = parentNode.getLevel();
+        this.actualCost = parentNode.getActualCost() + 2 * pushes;
+        this.walked = parentNode.getWalked() + walk;
+        this.parent = parentNode.getHandle();
+        this.move = Level.MOVES[direction];
+        this.pushedBox = box;
+        this.player = player;
+        this.standing = standing;
+
+        int index = Arrays.binarySearch(parentNode.getBoxes(), box);
+        this.boxes = pushBox(parentNode.getBoxes(), index, destination);
+        this.boxHash = parentNode.getBoxHash() ^ level.boxKey(box) ^ level.boxKey(destination);
+
+        this.heuristicCost = heuristic.estimate(parentNode, index, destination);
     }
 
     //reads the position of the boxes
-    private Coordinates[] boxPosition(char[][] itemsData){
-        int boxcount = 0, poscount = 0;
-        int[] posX = new int[MAXBOXES], posY = new int[MAXBOXES];
+    private int[] boxPosition(char[][] itemsData){
+        int boxcount = 0;
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
+        for (int i = 0; i < level.getHeight(); i++) {
+            for (int j = 0; j < level.getWidth(); j++) {
                 if (itemsData[i][j] == '$') {
-                   posX[poscount] = i;
-                   posY[poscount] = j;
-                   poscount++;
-
-                   boxcount++;
-                } 
-
+                    boxcount++;
+                }
             }
         }
 
-        Coordinates[] positions = new Coordinates[boxcount];
+        int[] positions = new int[boxcount];
+        int poscount = 0;
 
-        for (int i = 0; i < poscount; i++) {
-            positions[i] = new Coordinates(posX[i], posY[i]);
+        //cells are visited in ascending order so the array is already sorted
+        for (int i = 0; i < level.getHeight(); i++) {
+            for (int j = 0; j < level.getWidth(); j++) {
+                if (itemsData[i][j] == '$') {
+                    positions[poscount++] = level.cell(i, j);
+                }
+            }
         }
 
         return positions;
     }
-    
+
     //reads the position of the player
-    private Coordinates playerPosition(char[][] itemsData){
+    private int playerPosition(char[][] itemsData){
 
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
+        for (int i = 0; i < level.getHeight(); i++) {
+            for (int j = 0; j < level.getWidth(); j++) {
                 if (itemsData[i][j] == '@') {
-                   return new Coordinates(i, j);
+                   return level.cell(i, j);
                 }
             }
         }
 
-        return null;
+        return -1;
     }
 
-    private ArrayList<Coordinates> simpleDeadlock(){
-        ArrayList<Coordinates> positions = new ArrayList<Coordinates>();
+    //Copies the box cells with the box at index moved to the destination, keeping the array sorted
+    private static int[] pushBox(int[] parentBoxes, int index, int destination) {
+        int[] newBoxes = parentBoxes.clone();
 
-        for (int i = 1; i < height - 1; i++) {
-            for (int j = 1; j < width - 1; j++) {
-                if (((map[i][j] == ' ') && (map[i-1][j] == '#' && map[i][j-1] == '#')) ||   //upper left corner so x = -1 and y = -1
-                    ((map[i][j] == ' ') && (map[i-1][j] == '#' && map[i][j+1] == '#')) ||   // upper right corner so x = -1 and y = +1
-                    ((map[i][j] == ' ') && (map[i+1][j] == '#' && map[i][j-1] == '#')) ||   // lower left corner so x = +1 and y = -1
-                    ((map[i][j] == ' ') && (map[i+1][j] == '#' && map[i][j+1] == '#'))) {   // lower right corner so x = +1 and y = +1
-                    positions.add(new Coordinates(i, j));
-                }
-            }
+        while (index > 0 && newBoxes[index - 1] > destination) {
+            newBoxes[index] = newBoxes[index - 1];
+            index--;
         }
+        while (index < newBoxes.length - 1 && newBoxes[index + 1] < destination) {
+            newBoxes[index] = newBoxes[index + 1];
+            index++;
+        }
+        newBoxes[index] = destination;
 
-        return positions;
+        return newBoxes;
     }
 
-    //Checks if the current position of a box is in a deadlock position i.e a corner
+    /**
+     * Checks if the current position of a box is in a deadlock position i.e a square no target can be reached from
+     * @return true or false
+     */
     public boolean isInSimpleDeadlock(){
 
-        for (Coordinates box : boxes) {
-            for (Coordinates square : obstacles) {
-                if (box.getX() == square.getX() && box.getY() == square.getY()) {
-                    return true;
-                }
+        for (int box : boxes) {
+            if (level.isDead(box)) {
+                return true;
             }
         }
 
         return false;
     }
 
-    //Calculates the current heuristic cost of the state using the Manhattan Distance
-    private int calculateHeuristicCost() {
-        int cost = 0;
-
-        for (Coordinates box : boxes) {
-            int minDist = Integer.MAX_VALUE;
-            for (Coordinates target : target) {
-                int dist = manhattanDistance(box, target);
-
-                if (map[box.getX()][box.getY()] == ' ') {
-                    //Give higher weight to empty spaces
-                    dist *= 2;
-                } else if (map[box.getX()][box.getY()] == '.') {
-                    //Give higher weight to boxes on target goals
-                    dist /= 2;
-                }
-
-                minDist = Math.min(minDist, dist);
-            }
-            cost += minDist;
-        }
-
-        return cost;
-    }
-
-    private int manhattanDistance(Coordinates from, Coordinates to) {
-        return Math.abs(from.getX() - to.getX()) + Math.abs(from.getY() - to.getY());
-    }
-
     /**
      * Checks if the goal was found by checking the map and item attributes of the object
      * @return true or false
@@ -209,120 +230,13 @@ public class Node{
         return heuristicCost == 0;
     }
 
-    //Creates a new state based on the direction it decided to go to
-    private char[][] newItemState(Node prev, char move){
-        char[][] newState = new char[height][width];//initialize the original state to change accordingly
-
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                newState[i][j] = prev.getItems()[i][j];
-            }
-        }
-
-        switch (move) {
-            case 'u':
-                if ((map[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] == ' ' ||
-                    map[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] == '.') &&
-                    newState[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] != '$') {
-
-                    newState[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] = '@';
-
-                }
-                
-                else if (newState[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] == '$') {
-                    this.actualCost++;
-
-                    if (map[prev.getPlayer().getX() - 2][prev.getPlayer().getY()] == ' ' ||
-                        map[prev.getPlayer().getX() - 2][prev.getPlayer().getY()] == '.') {
-                        
-                        newState[prev.getPlayer().getX() - 1][prev.getPlayer().getY()] = '@';
-                        newState[prev.getPlayer().getX() - 2][prev.getPlayer().getY()] = '$';
-                    } 
-
-                }
-                
-                newState[prev.getPlayer().getX()][prev.getPlayer().getY()] = ' ';
-
-                break;
-            
-
-            case 'd':
-                if ((map[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] == ' ' ||
-                    map[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] == '.') &&
-                    newState[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] != '$') {
-
-                    newState[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] = '@';
-
-                }
-
-                else if (newState[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] == '$') {
-                    this.actualCost++;
-
-                    if (map[prev.getPlayer().getX() + 2][prev.getPlayer().getY()] == ' ' ||
-                        map[prev.getPlayer().getX() + 2][prev.getPlayer().getY()] == '.') {
-                        
-                        newState[prev.getPlayer().getX() + 1][prev.getPlayer().getY()] = '@';
-                        newState[prev.getPlayer().getX() + 2][prev.getPlayer().getY()] = '$';
-                    } 
-
-                }
-                
-                newState[prev.getPlayer().getX()][prev.getPlayer().getY()] = ' ';
-                
-                break;
-
-            case 'l':
-                if ((map[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] == ' ' ||
-                    map[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] == '.') &&
-                    newState[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] != '$') {
-
-                    newState[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] = '@';
-
-                } 
-                
-                else if (newState[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] == '$') {
-                    this.actualCost++;
-
-                    if (map[prev.getPlayer().getX()][prev.getPlayer().getY() - 2] == ' ' ||
-                        map[prev.getPlayer().getX()][prev.getPlayer().getY() - 2] == '.') {
-                        
-                        newState[prev.getPlayer().getX()][prev.getPlayer().getY() - 1] = '@';
-                        newState[prev.getPlayer().getX()][prev.getPlayer().getY() - 2] = '$';
-                    } 
-
-                }
-                
-                newState[prev.getPlayer().getX()][prev.getPlayer().getY()] = ' ';
-                
-                break;
-
-            case 'r':
-                if ((map[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] == ' ' ||
-                    map[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] == '.')  &&
-                    newState[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] != '$') {
-
-                    newState[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] = '@';
-
-                }
-
-                else if (newState[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] == '$') {
-                    this.actualCost++;
-
-                    if (map[prev.getPlayer().getX()][prev.getPlayer().getY() + 2] == ' ' ||
-                        map[prev.getPlayer().getX()][prev.getPlayer().getY() + 2] == '.') {
-                        
-                        newState[prev.getPlayer().getX()][prev.getPlayer().getY() + 1] = '@';
-                        newState[prev.getPlayer().getX()][prev.getPlayer().getY() + 2] = '$';
-                    } 
-
-                }
-                
-                newState[prev.getPlayer().getX()][prev.getPlayer().getY()] = ' ';
-
-                break;
-        }
-        return newState;
-         
+    /**
+     * checks if a box is on a cell
+     * @param cell cell index
+     * @return true or false
+     */
+    public boolean hasBox(int cell) {
+        return Arrays.binarySearch(boxes, cell) >= 0;
     }
 
     /**
@@ -331,109 +245,57 @@ public class Node{
      * @return true or false
      */
     public boolean isMoveValid(char move) {
-        char pos, pos2, item, item2;
-        switch (move) {
-            case 'u':
-                pos = map[this.getPlayer().getX() - 1][this.getPlayer().getY()];
-                item = this.getItems()[this.getPlayer().getX() - 1][this.getPlayer().getY()];
-
-                if (pos == '#') {
-                    return false;
-                } else {
-                    pos2 = map[this.getPlayer().getX() - 2][this.getPlayer().getY()];
-                    item2 = this.getItems()[this.getPlayer().getX() - 2][this.getPlayer().getY()];
-
-                    if (item == '$' && item2 != '$' && pos2 != '#') {
-                        return true;
-                    } else if (item == ' ') {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                    
-                }
-            case 'd':
-                pos = map[this.getPlayer().getX() + 1][this.getPlayer().getY()];
-                item = this.getItems()[this.getPlayer().getX() + 1][this.getPlayer().getY()];
-
-                if (pos == '#') {
-                    return false;
-                } else {
-                    pos2 = map[this.getPlayer().getX() + 2][this.getPlayer().getY()];
-                    item2 = this.getItems()[this.getPlayer().getX() + 2][this.getPlayer().getY()];
-
-                    if (item == '$' && item2 != '$' && pos2 != '#') {
-                        return true;
-                    } else if (item == ' ') {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                    
-                }
-            case 'l':
-                pos = map[this.getPlayer().getX()][this.getPlayer().getY() - 1];
-                item = this.getItems()[this.getPlayer().getX()][this.getPlayer().getY() - 1];
-
-                if (pos == '#') {
-                    return false;
-                } else {
-                    pos2 = map[this.getPlayer().getX()][this.getPlayer().getY() - 2];
-                    item2 = this.getItems()[this.getPlayer().getX()][this.getPlayer().getY() - 2];
-
-                    if (item == '$' && item2 != '$' && pos2 != '#') {
-                        return true;
-                    } else if (item == ' ') {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                    
-                }
-            case 'r':
-                pos = map[this.getPlayer().getX()][this.getPlayer().getY() + 1];
-                item = this.getItems()[this.getPlayer().getX()][this.getPlayer().getY() + 1];
-
-                if (pos == '#') {
-                    return false;
-                } else {
-                    pos2 = map[this.getPlayer().getX()][this.getPlayer().getY() + 2];
-                    item2 = this.getItems()[this.getPlayer().getX()][this.getPlayer().getY() + 2];
-
-                    if (item == '$' && item2 != '$' && pos2 != '#') {
-                        return true;
-                    } else if (item == ' ') {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                    
-                }
+        int direction = Level.direction(move);
+        if (direction < 0) {
+            return false;
         }
-        return false;
+
+        int next = level.step(player, direction);
+        if (level.isWall(next)) {
+            return false;
+        }
+        if (!hasBox(next)) {
+            return true;
+        }
+
+        int beyond = level.step(next, direction);
+        return !level.isWall(beyond) && !hasBox(beyond);
     }
 
     /**
-     * Creates the string representation of the map for checking
-     * @return map string
+     * Creates the string representation of the movable items for checking
+     * @return items string
      */
     public String stringRep(){
-        String str = "";
-        for (int i = 0; i < map.length; i++) {
-            for (int j = 0; j < map[0].length; j++) {
-                str += items[i][j];
+        StringBuilder str = new StringBuilder(level.getSize());
+        for (int cell = 0; cell < level.getSize(); cell++) {
+            if (cell == player) {
+                str.append('@');
+            } else if (hasBox(cell)) {
+                str.append('$');
+            } else {
+                str.append(' ');
             }
         }
-        return str;
+        return str.toString();
+    }
+
+    /**
+     * gets the Zobrist hash of the whole state i.e the boxes and the player
+     * @return 64-bit hash
+     */
+    public long getHash() {
+        return boxHash ^ level.playerKey(player);
     }
 
     @Override
     public int hashCode() {
-        return stringRep().hashCode();
+        long hash = getHash();
+        return (int) (hash ^ (hash >>> 32));
     }
-    
+
     /**
-     * Checks if the object (Node) has an equal string rep of the current node
+     * Checks if the object (Node) has the same player and box positions as the current node
      * @param obj Object to be compared
      * @return true or false
      */
@@ -446,10 +308,18 @@ public class Node{
         if (obj == null || !(obj instanceof Node)) {
             return false;
         }
-        
+
         Node other = (Node) obj;
-        return Arrays.deepEquals(items, other.items);
-        
+        return player == other.player && boxHash == other.boxHash && Arrays.equals(boxes, other.boxes);
+
+    }
+
+    /**
+     * Checks if some box can never be pushed to a target, no matter how the boxes are matched to the targets
+     * @return true or false
+     */
+    public boolean isUnsolvable(){
+        return heuristicCost >= Heuristic.INFINITE;
     }
 
     /**
@@ -459,29 +329,29 @@ public class Node{
     public int priorityCosts(){
         return this.actualCost + this.heuristicCost;
     }
-    
+
     /**
-     * gets the height of the map
-     * @return height
+     * gets the level the node is in
+     * @return level
      */
-    public int getHeight() {
-        return height;
+    public Level getLevel() {
+        return level;
     }
 
     /**
-     * gets the width of the map
-     * @return width
+     * gets the sorted cells of the boxes, the array is shared and should not be modified
+     * @return array of box cells
      */
-    public int getWidth() {
-        return width;
+    public int[] getBoxes() {
+        return boxes;
     }
 
     /**
-     * gets the coordinates of the boxes
-     * @return array of position of boxes
+     * gets the Zobrist hash of the box cells only
+     * @return 64-bit hash of the boxes
      */
-    public Coordinates[] getBoxes() {
-        return boxes;
+    public long getBoxHash() {
+        return boxHash;
     }
 
     /**
@@ -501,47 +371,95 @@ public class Node{
     }
 
     /**
-     * gets the mapping of the movable items in the node
-     * @return movable items
+     * gets the state this node was created from
+     * @return handle of the parent in the arena of the search or StateArena.NONE for the root node
      */
-    public char[][] getItems() {
-        return items;
+    public int getParent() {
+        return parent;
     }
 
     /**
-     * gets the main map of the node
-     * @return main map
+     * gets the handle of the state of this node in the arena of the search
+     * @return handle or StateArena.NONE if the node was not stored yet
      */
-    public char[][] getMap() {
-        return map;
+    public int getHandle() {
+        return handle;
     }
 
     /**
-     * gets the string path of what the current node has took
-     * @return current path representation
+     * sets the handle of the state of this node, which must be done before its children are created
+     * @param handle handle returned by the arena
      */
-    public String getPath() {
-        return path;
+    public void setHandle(int handle) {
+        this.handle = handle;
     }
 
     /**
-     * gets the coordinates of the player on the map
-     * @return postion of player
+     * gets the move performed on the parent node to get to this node
+     * @return direction of the move
      */
-    public Coordinates getPlayer() {
+    public char getMove() {
+        return move;
+    }
+
+    /**
+     * gets the cell the box pushed by the last move was on
+     * @return cell of the pushed box or -1 if no box was pushed
+     */
+    public int getPushedBox() {
+        return pushedBox;
+    }
+
+    /**
+     * gets the slot of the node in the heap of an open list
+     * @return heap slot or -1 if the node is not in an open list
+     */
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    /**
+     * sets the slot of the node in the heap of an open list
+     * @param heapIndex heap slot or -1 if the node left the open list
+     */
+    public void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
+    /**
+     * gets the cell of the player on the map
+     * @return cell of player
+     */
+    public int getPlayer() {
         return player;
     }
 
     /**
-     * gets the coordinates of the targets in the map
-     * @return array of possitions of targets
+     * Checks if this node reaches its state for less than another node of the same state, a lower cost or the same cost
+     * with a shorter walk
+     * @param other node with the same state
+     * @return true or false
+     */
+    public boolean isCheaperThan(Node other) {
+        return actualCost < other.getActualCost() || actualCost == other.getActualCost() && walked < other.getWalked();
+    }
+
+    /**
+     * gets the number of steps walked without pushing since the root, which the push-level search keeps out of the
+     * cost so the walks do not slow the search down
+     * @return walked steps
      */
-    public Coordinates[] getTarget() {
-        return target;
+    public int getWalked() {
+        return walked;
     }
 
-    public ArrayList<Coordinates> getobstacles() {
-        return obstacles;
+    /**
+     * gets the cell the player stands on after the last push, which is the player cell for a node of the
+     * move-level search
+     * @return cell of player
+     */
+    public int getStanding() {
+        return standing;
     }
 
-}
\ No newline at end of file
+}
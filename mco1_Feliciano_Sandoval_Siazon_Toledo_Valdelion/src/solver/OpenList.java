@@ -0,0 +1,163 @@
+package solver;
+
+import java.util.Comparator;
+
+/**
+ * The open list of the search. It is a binary heap of nodes ordered by a <code>Comparator</code> paired with a
+ * <code>TranspositionTable</code> from a state to the node holding it. Every node remembers its slot in the heap,
+ * so checking if a state is open takes constant time and lowering the cost of an open state only sifts that
+ * node up instead of copying or rebuilding the whole queue.
+ */
+public class OpenList {
+    private Node[] heap;// the nodes of the heap, the best one is at slot 0
+    private int size;// number of nodes in the heap
+    private Comparator<Node> order;// decides which of two nodes should be expanded first
+    private TranspositionTable index;// finds the open node of a state
+
+    /**
+     * Constructor for an empty open list
+     * @param order ordering of the nodes, the smallest node is polled first
+     */
+    public OpenList(Comparator<Node> order) {
+        this.heap = new Node[1 << 10];
+        this.size = 0;
+        this.order = order;
+        this.index = new TranspositionTable();
+    }
+
+    /**
+     * Adds a node whose state is not in the open list yet
+     * @param node node to be added
+     */
+    public void add(Node node) {
+        if (size == heap.length) {
+            Node[] bigger = new Node[heap.length * 2];
+            System.arraycopy(heap, 0, bigger, 0, size);
+            heap = bigger;
+        }
+
+        index.add(node);
+        heap[size] = node;
+        node.setHeapIndex(size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Removes and returns the node that should be expanded next
+     * @return best node or null if the list is empty
+     */
+    public Node poll() {
+        if (size == 0) {
+            return null;
+        }
+
+        Node best = heap[0];
+        size--;
+        if (size > 0) {
+            place(heap[size], 0);
+            siftDown(0);
+        }
+        heap[size] = null;
+
+        index.remove(best);
+        best.setHeapIndex(-1);
+        return best;
+    }
+
+    /**
+     * gets the node that should be expanded next without removing it
+     * @return best node or null if the list is empty
+     */
+    public Node peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * gets the open node with the same state
+     * @param node node to be looked for
+     * @return the open node or null if the state is not open
+     */
+    public Node get(Node node) {
+        return index.get(node);
+    }
+
+    /**
+     * Checks if the state of a node is in the open list
+     * @param node node to be checked
+     * @return true or false
+     */
+    public boolean contains(Node node) {
+        return index.contains(node);
+    }
+
+    /**
+     * Replaces an open node with a node of the same state that should be expanded earlier
+     * @param open the node currently in the open list
+     * @param better the node with the same state and a lower cost
+     */
+    public void replace(Node open, Node better) {
+        int slot = open.getHeapIndex();
+
+        index.remove(open);
+        index.add(better);
+        open.setHeapIndex(-1);
+
+        place(better, slot);
+        siftUp(slot);
+    }
+
+    /**
+     * gets the number of nodes in the open list
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the open list has no nodes
+     * @return true or false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //puts a node in a slot of the heap
+    private void place(Node node, int slot) {
+        heap[slot] = node;
+        node.setHeapIndex(slot);
+    }
+
+    private void siftUp(int slot) {
+        Node node = heap[slot];
+
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (order.compare(node, heap[parent]) >= 0) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(node, slot);
+    }
+
+    private void siftDown(int slot) {
+        Node node = heap[slot];
+        int half = size >>> 1;
+
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (order.compare(node, heap[child]) <= 0) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(node, slot);
+    }
+}
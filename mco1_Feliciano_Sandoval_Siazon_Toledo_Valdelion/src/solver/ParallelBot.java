@@ -0,0 +1,326 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches box pushes with hash distributed A* (HDA*) on several threads. Every state is owned by one worker, chosen
+ * by the Zobrist hash of the state, and only that worker keeps it in its own open list and closed table, so the
+ * workers never lock each other. A child owned by another worker is sent to it through a lock-free queue.
+ *
+ * <p>Since the workers do not expand nodes in one global order, finding a goal does not end the search. The cost of
+ * the cheapest goal found so far is shared, nodes that cannot beat it are dropped, and the search ends once every
+ * worker is out of better nodes and no node is still on its way to a worker. A closed state reached again with a
+ * lower cost is opened again, so the solution has the same cost as the one of <code>SokoBot</code>.</p>
+ */
+public class ParallelBot extends SokoBot {
+    private static final long SAMPLE_MILLIS = 50;// time between two sums of the counters of the workers
+
+    private int threads;// number of workers
+    private Worker[] workers;
+    private AtomicLong active;// nodes sent but not yet received plus busy workers, the search is over at zero
+    private volatile boolean done;// set once the search is over
+    private volatile SolverStatus stopped;// why a limit stopped the search, null if none did
+    private AtomicLong expanded;// nodes expanded by every worker
+    private volatile int bestCost;// actual cost of the cheapest goal found so far
+    private Node best;// cheapest goal found so far
+    private DeadlockDetector deadlocks;// the summed counters of every worker
+
+    /**
+     * Constructor for a bot with one worker per processor
+     */
+    public ParallelBot() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for a bot with a chosen number of workers
+     * @param threads number of workers
+     */
+    public ParallelBot(int threads) {
+        super(SearchMode.PUSHES);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Searches the map on every worker and returns the cheapest solution
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation of the search
+     * @return how the search ended with the solution or the best partial path
+     */
+    @Override
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+        done = false;
+        stopped = null;
+        expanded = new AtomicLong();
+        best = null;
+        bestCost = Integer.MAX_VALUE;
+
+        Level level = LevelCache.shared().get(height, width, mapData);
+        Expander first = new Expander(level, SearchMode.PUSHES, heuristic(level));
+        Node root = first.root(itemsData);
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, i == 0 ? first : new Expander(level, SearchMode.PUSHES, heuristic(level)), root.getBoxes().length);
+        }
+
+        int start = root.getPlayer();
+        active = new AtomicLong(1);
+        workers[owner(root)].inbox.add(root);
+
+        Thread[] pool = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            pool[i] = new Thread(workers[i], "hda-" + i);
+            pool[i].setDaemon(true);
+            pool[i].start();
+        }
+
+        try {
+            for (Thread thread : pool) {
+                while (thread.isAlive()) {
+                    thread.join(SAMPLE_MILLIS);
+                    publish(combine(root, startTime));
+                }
+            }
+        } catch (InterruptedException ex) {
+            limits.cancel();
+            Thread.currentThread().interrupt();
+        }
+
+        deadlocks = new DeadlockDetector(level);
+        for (Worker worker : workers) {
+            deadlocks.add(worker.expander.getDeadlocks());
+        }
+
+        publish(combine(root, startTime));
+
+        Expander expander = workers[0].expander;
+        long elapsed = System.nanoTime() - startTime;
+        long frontier = 0;// the open lists do not peak at the same time, so this is an upper bound
+        for (Worker worker : workers) {
+            frontier += worker.frontier;
+        }
+        if (best != null) {
+            return new SolverResult(SolverStatus.SOLVED, path(expander, best, start), expanded.get(), elapsed, frontier);
+        }
+
+        Node closest = root;
+        for (Worker worker : workers) {
+            if (worker.closest != null && worker.closest.getHeuristicCost() < closest.getHeuristicCost()) {
+                closest = worker.closest;
+            }
+        }
+        SolverStatus status = stopped != null ? stopped : SolverStatus.UNSOLVABLE;
+        return new SolverResult(status, path(expander, closest, start), expanded.get(), elapsed, frontier);
+    }
+
+    /**
+     * gets the summed deadlock counters of every worker of the last search
+     * @return deadlock detector or null if no search was made
+     */
+    @Override
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
+    }
+
+    //Gathers the states on the path of a node from the arenas of the workers into one arena and rebuilds its moves
+    private String path(Expander expander, Node last, int start) {
+        int length = 0;
+        for (int state = last.getParent(); state != StateArena.NONE; state = parentOf(state)) {
+            length++;
+        }
+
+        int[] states = new int[length];
+        for (int state = last.getParent(); state != StateArena.NONE; state = parentOf(state)) {
+            states[--length] = state;
+        }
+
+        StateArena path = new StateArena(last.getBoxes().length);
+        int parent = StateArena.NONE;
+        for (int state : states) {
+            parent = path.copy(workers[state % threads].closedList, state / threads, parent);
+        }
+        return expander.path(path, path.add(last, parent), start);
+    }
+
+    //gets the parent of a state stored by any worker, handles are local handles times threads plus the worker index
+    private int parentOf(int state) {
+        return workers[state % threads].closedList.getParent(state / threads);
+    }
+
+    //Sums the latest counters of every worker
+    private SearchStats combine(Node root, long startTime) {
+        SearchStats sum = new SearchStats();
+        for (Worker worker : workers) {
+            SearchStats counters = worker.snapshot;
+            if (counters != null) {
+                sum.add(counters);
+            }
+        }
+        sum.initialEstimate = root.getHeuristicCost();
+        sum.solutionCost = bestCost != Integer.MAX_VALUE ? bestCost : -1;
+        return sum.snapshot(System.nanoTime() - startTime, 0);
+    }
+
+    //gets the index of the worker that owns the state of a node
+    private int owner(Node node) {
+        return (int) ((node.getHash() >>> 1) % threads);
+    }
+
+    //keeps a goal if it is cheaper than every goal found so far
+    private synchronized void offer(Node goal) {
+        if (goal.getActualCost() < bestCost) {
+            best = goal;
+            bestCost = goal.getActualCost();
+        }
+    }
+
+    /**
+     * One thread of the search with its own open list, closed table and inbox
+     */
+    private class Worker implements Runnable {
+        private int index;// index of the worker in workers
+        private Expander expander;
+        private OpenList openList = new OpenList(new CostCompare());
+        private StateArena closedList;
+        private ConcurrentLinkedQueue<Node> inbox = new ConcurrentLinkedQueue<Node>();// nodes sent by other workers
+        private ArrayList<Node> children = new ArrayList<Node>();
+        private Node closest;// expanded node with the lowest heuristic cost
+        private long count;// nodes expanded by this worker that are not yet added to expanded
+        private int frontier;// largest size of the open list of this worker
+        private SearchStats counters = new SearchStats();// only read by this worker, copies are published
+        private volatile SearchStats snapshot;// latest copy of the counters
+
+        private Worker(int index, Expander expander, int boxCount) {
+            this.index = index;
+            this.expander = expander;
+            this.closedList = new StateArena(boxCount);
+        }
+
+        @Override
+        public void run() {
+            boolean busy = false;
+            SearchLimits own = limits.child();// counts its own checks, so the workers do not write to one shared counter
+
+            while (!done) {
+                Node message;
+                while ((message = inbox.poll()) != null) {
+                    if (!busy) {
+                        active.incrementAndGet();
+                        busy = true;
+                    }
+                    insert(message);
+                    active.decrementAndGet();
+                }
+
+                Node next = openList.peek();
+                if (next != null && next.priorityCosts() < bestCost) {
+                    SolverStatus stop = own.check(expanded.get() + count);
+                    if (stop != null) {
+                        stopped = stop;
+                        done = true;
+                        break;
+                    }
+                    if (!busy) {
+                        active.incrementAndGet();
+                        busy = true;
+                    }
+                    expand(openList.poll());
+                } else if (busy) {
+                    busy = false;
+                    if (active.decrementAndGet() == 0) {
+                        done = true;
+                    }
+                } else if (active.get() == 0) {
+                    done = true;
+                } else if (own.isCancelled()) {
+                    stopped = SolverStatus.CANCELLED;
+                    done = true;
+                } else {
+                    Thread.yield();//wait for another worker to send a node
+                }
+            }
+            expanded.addAndGet(count);//the expansions not yet added when the worker stopped
+            count = 0;
+            sample();
+        }
+
+        //Publishes a copy of the counters of this worker
+        private void sample() {
+            counters.open = openList.size();
+            counters.closed = closedList.size();
+            snapshot = counters.snapshot(0, expander.getDeadlocks().getTotalPrunes());
+        }
+
+        //Adds a node owned by this worker unless a cheaper path to its state is known
+        private void insert(Node node) {
+            if (node.priorityCosts() >= bestCost) {
+                counters.pruned++;//cannot beat the cheapest goal found so far
+                return;
+            }
+
+            int closed = closedList.find(node);
+            if (closed != StateArena.NONE && closedList.getCost(closed) <= node.getActualCost()) {
+                counters.duplicates++;
+                return;
+            }
+            //a closed state reached again with a lower cost is opened again, its entry is overwritten when expanded
+
+            Node open = openList.get(node);
+            if (open == null) {
+                openList.add(node);
+            } else if (node.isCheaperThan(open)) {
+                openList.replace(open, node);
+            } else {
+                counters.duplicates++;
+            }
+        }
+
+        //Expands a node and sends every child to its owner
+        private void expand(Node node) {
+            if (node.goalFound()) {
+                offer(node);
+                return;
+            }
+
+            node.setHandle(closedList.add(node, node.getParent()) * threads + index);
+            counters.expanded++;
+            if ((counters.expanded & SAMPLE_MASK) == 0) {
+                sample();
+            }
+            frontier = Math.max(frontier, openList.size() + 1);
+            if (closest == null || node.getHeuristicCost() < closest.getHeuristicCost()) {
+                closest = node;
+            }
+            if (++count == 64) {
+                expanded.addAndGet(count);//the shared counter is only updated every few expansions
+                count = 0;
+            }
+
+            children.clear();
+            expander.expand(node, children);
+            counters.generated += children.size();
+
+            for (Node child : children) {
+                if (child.isUnsolvable()) {
+                    counters.pruned++;
+                    continue;
+                }
+
+                int owner = owner(child);
+                if (owner == index) {
+                    insert(child);
+                } else {
+                    active.incrementAndGet();
+                    workers[owner].inbox.add(child);
+                }
+            }
+        }
+    }
+}
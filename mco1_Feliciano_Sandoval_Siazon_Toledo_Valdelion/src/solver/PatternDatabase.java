@@ -0,0 +1,437 @@
+package solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Holds the exact number of pushes needed to get every pair of boxes onto targets, with no other box on the map and
+ * wherever the player starts. The costs are found once per level by pulling pairs of boxes away from every pair of
+ * targets, written to a file named after the fingerprint of the level, and memory mapped when the level is solved
+ * again so a lookup reads the file through the page cache without copying it to the heap.
+ *
+ * <p>The estimate of a state adds the push distance of every box to its nearest target, plus the pushes a pair of
+ * boxes needs on top of their own distances, for pairs that share no box. The pushes of different boxes are never
+ * counted twice, so the estimate never goes above the real number of pushes, and it catches pairs that block each
+ * other, which the matching of <code>Heuristic</code> cannot see. A pair that can never be solved makes the state
+ * a deadlock.</p>
+ *
+ * <p>The table of a level is built or mapped once and shared, read only, by every search of the level, even ones
+ * running at the same time. The scratch arrays of the estimate are not shared, so every search thread opens its own
+ * instance. Building the table checks the limits of the search that asked for it, so a deadline or a cancellation
+ * stops it like any search.</p>
+ */
+public class PatternDatabase {
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("java.io.tmpdir"), "sokobot-patterns");
+
+    private static final int MAGIC = 0x53504442, VERSION = 1;// "SPDB" and the version of the file format
+    private static final int HEADER = 28;// bytes of the magic, version, fingerprint, width, height and cell count
+    private static final char UNSOLVABLE = 0xFFFF;// cost of a pair that can never be pushed onto targets
+    private static final int MAX_WORDS = 1 << 24;// longs of the visited states of a build, 128 MB
+    private static final long WAIT_MILLIS = 20;// time between two checks of the limits while another search builds
+    private static final int SHARED = 8;// tables kept in memory, the one used least recently is dropped
+
+    // tables of the levels used most recently by the path of their file, a table is built by the first search asking
+    private static final LinkedHashMap<String, FutureTask<Table>> TABLES = new LinkedHashMap<String, FutureTask<Table>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FutureTask<Table>> eldest) {
+            return size() > SHARED;
+        }
+    };
+
+    private Table table;// costs of the level, shared with every other search of it
+    private int[] cells;// cells of the boxes being estimated
+    private int[] excess;// pushes every pair of boxes needs on top of their own distances
+    private boolean[] paired;// boxes already in a chosen pair
+
+    /**
+     * The costs of a level with the slots and distances to read them, never changed once built
+     */
+    private static class Table {
+        private ByteBuffer costs;// cost of every pair of slots, the file from the first cost on, only read at an index
+        private int[] slots;// index of every cell among the cells a box can be on, -1 for the other cells
+        private int[] nearest;// push distance of every cell to its nearest target
+
+        private Table(ByteBuffer costs, int[] slots, int[] nearest) {
+            this.costs = costs;
+            this.slots = slots;
+            this.nearest = nearest;
+        }
+    }
+
+    private PatternDatabase(Table table) {
+        this.table = table;
+        this.cells = new int[0];
+    }
+
+    /**
+     * Opens the pattern database of a level, building it and writing it to the folder first if it has no file yet.
+     * If the file cannot be written the database is kept on the heap instead
+     * @param level the walls and targets of the map
+     * @param directory folder of the pattern database files
+     * @return pattern database of the level, or null if the level is too large for one
+     */
+    public static PatternDatabase open(Level level, File directory) {
+        return open(level, directory, new SearchLimits());
+    }
+
+    /**
+     * Opens the pattern database of a level, building it first if no search built or wrote it yet, unless the limits
+     * stop the search meanwhile. A search of the same level building the table at the same time is waited for
+     * @param level the walls and targets of the map
+     * @param directory folder of the pattern database files
+     * @param limits limits of the search that needs the database
+     * @return pattern database of the level, or null if the limits stopped the search or the level is too large
+     */
+    public static PatternDatabase open(Level level, File directory, SearchLimits limits) {
+        File file = new File(directory, String.format("%016x.pdb", level.getFingerprint()));
+        String key = file.getPath();
+
+        while (true) {
+            FutureTask<Table> task;
+            boolean building = false;
+            synchronized (TABLES) {
+                task = TABLES.get(key);
+                if (task == null) {
+                    task = new FutureTask<Table>(() -> load(level, file, limits));
+                    TABLES.put(key, task);
+                    building = true;
+                }
+            }
+            if (building) {
+                task.run();
+            }
+
+            Table table = null;
+            try {
+                while (table == null) {
+                    try {
+                        table = task.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException ex) {
+                        if (limits.checkWaiting() != null) {
+                            return null;
+                        }
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException ex) {
+                table = null;
+            }
+
+            if (table != null) {
+                return new PatternDatabase(table);
+            }
+            synchronized (TABLES) {
+                TABLES.remove(key, task);//a stopped build is not kept, the next search of the level builds it again
+            }
+            if (building || limits.checkWaiting() != null) {
+                return null;
+            }
+            //the limits of the other search stopped its build, this search builds the table itself
+        }
+    }
+
+    //Maps the file of a level, or builds its table and writes it, returns null if the limits stopped the build
+    private static Table load(Level level, File file, SearchLimits limits) {
+        int[] slots = new int[level.getSize()];
+        int count = 0;
+        for (int cell = 0; cell < level.getSize(); cell++) {
+            slots[cell] = level.isWall(cell) || level.isDead(cell) ? -1 : count++;
+        }
+        int[] nearest = new int[level.getSize()];
+        for (int cell = 0; cell < level.getSize(); cell++) {
+            nearest[cell] = Level.UNREACHABLE;
+            for (int target = 0; target < level.getTargets().length; target++) {
+                nearest[cell] = Math.min(nearest[cell], level.distance(target, cell));
+            }
+        }
+
+        ByteBuffer costs = map(file, level, count);
+        if (costs == null) {
+            char[] table = build(level, slots, count, limits);
+            if (table == null) {
+                return null;
+            }
+            try {
+                write(file, level, count, table);
+                costs = map(file, level, count);
+            } catch (IOException ex) {
+                costs = null;
+            }
+            if (costs == null) {
+                costs = ByteBuffer.allocate(table.length * 2);
+                costs.asCharBuffer().put(table);
+            }
+        }
+
+        return new Table(costs, slots, nearest);
+    }
+
+    //Maps the costs of a file if it exists and was written for the same level, or returns null
+    private static ByteBuffer map(File file, Level level, int count) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (RandomAccessFile input = new RandomAccessFile(file, "r"); FileChannel channel = input.getChannel()) {
+            long size = HEADER + (long) pairs(count) * 2;
+            if (channel.size() != size) {
+                return null;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != level.getFingerprint() ||
+                header.getInt() != level.getWidth() || header.getInt() != level.getHeight() || header.getInt() != count) {
+                return null;
+            }
+
+            //the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, HEADER, size - HEADER);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    //Writes the costs to a temporary file and renames it, so another search never maps a half written file
+    private static void write(File file, Level level, int count, char[] table) throws IOException {
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Cannot create " + file.getParentFile());
+        }
+
+        File temporary = File.createTempFile("patterns", ".tmp", file.getParentFile());
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(level.getFingerprint());
+            output.writeInt(level.getWidth());
+            output.writeInt(level.getHeight());
+            output.writeInt(count);
+            for (char cost : table) {
+                output.writeChar(cost);
+            }
+        }
+
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            if (!file.isFile()) {
+                throw new IOException("Cannot write " + file);
+            }
+        }
+    }
+
+    //gets the number of pairs of slots
+    private static int pairs(int count) {
+        return count * (count - 1) / 2;
+    }
+
+    //gets the index of the cost of a pair of different slots
+    private static int pair(int first, int second) {
+        return first > second ? first * (first - 1) / 2 + second : second * (second - 1) / 2 + first;
+    }
+
+    //Finds the cost of every pair of slots with a breadth first search of pulls from every pair of targets, returns
+    //null if the limits stop it or the level has too many states
+    private static char[] build(Level level, int[] slots, int count, SearchLimits limits) {
+        int size = level.getSize();
+        int[] floors = new int[size];// index of every cell among the cells the player can stand on
+        int floorCount = 0;
+        for (int cell = 0; cell < size; cell++) {
+            floors[cell] = level.isWall(cell) ? -1 : floorCount++;
+        }
+
+        //one bit per pair of slots and cell of the player, only cells representing a region are ever set
+        long words = ((long) pairs(count) * floorCount + 63) >>> 6;
+        if (words > MAX_WORDS) {
+            return null;
+        }
+        long[] seen = new long[(int) words];
+        char[] table = new char[pairs(count)];
+        Arrays.fill(table, UNSOLVABLE);
+
+        int[] targets = level.getTargets();
+        Reachability reachability = new Reachability(level);
+        long[] current = new long[64], next = new long[64];// states of this and the next number of pulls
+        int currentSize = 0, nextSize = 0;
+        int[] boxes = new int[2], moved = new int[2];
+
+        //every pair of targets with the player in any region of the map is solved
+        for (int i = 0; i < targets.length; i++) {
+            for (int j = i + 1; j < targets.length; j++) {
+                boxes[0] = targets[i];
+                boxes[1] = targets[j];
+                boolean[] covered = new boolean[size];
+
+                for (int cell = 0; cell < size; cell++) {
+                    if (level.isWall(cell) || cell == boxes[0] || cell == boxes[1] || covered[cell]) {
+                        continue;
+                    }
+                    int player = reachability.fill(boxes, cell);
+                    for (int other = 0; other < size; other++) {
+                        covered[other] |= reachability.isReachable(other);
+                    }
+                    if (visit(seen, slots, floors, floorCount, boxes[0], boxes[1], player)) {
+                        current = push(current, currentSize++, state(level, boxes[0], boxes[1], player));
+                    }
+                }
+            }
+        }
+
+        int[] pulls = new int[2 * Level.MOVES.length];
+        for (char pushes = 0; currentSize > 0; pushes++) {
+            for (int k = 0; k < currentSize; k++) {
+                if (limits.check(0) != null) {
+                    return null;
+                }
+
+                long state = current[k];
+                int player = (int) (state % size);
+                boxes[0] = (int) (state / size % size);
+                boxes[1] = (int) (state / size / size);
+
+                int index = pair(slots[boxes[0]], slots[boxes[1]]);
+                if (table[index] == UNSOLVABLE) {
+                    table[index] = pushes;
+                }
+
+                //the pulls are collected first since the fills of the children overwrite the fill of the state
+                int found = 0;
+                reachability.fill(boxes, player);
+                for (int box = 0; box < 2; box++) {
+                    for (int direction = 0; direction < Level.MOVES.length; direction++) {
+                        int stand = level.step(boxes[box], direction);
+                        int beyond = level.step(stand, direction);
+                        if (reachability.isReachable(stand) && !level.isWall(beyond) && beyond != boxes[1 - box] &&
+                            slots[stand] != -1) {
+                            pulls[found++] = box * Level.MOVES.length + direction;
+                        }
+                    }
+                }
+
+                for (int i = 0; i < found; i++) {
+                    int box = pulls[i] / Level.MOVES.length;
+                    int direction = pulls[i] % Level.MOVES.length;
+                    int stand = level.step(boxes[box], direction);
+                    int other = boxes[1 - box];
+                    moved[0] = stand;
+                    moved[1] = other;
+                    int region = reachability.fill(moved, level.step(stand, direction));
+
+                    int first = Math.min(stand, other), second = Math.max(stand, other);
+                    if (visit(seen, slots, floors, floorCount, first, second, region)) {
+                        next = push(next, nextSize++, state(level, first, second, region));
+                    }
+                }
+            }
+
+            long[] swap = current;
+            current = next;
+            next = swap;
+            currentSize = nextSize;
+            nextSize = 0;
+        }
+
+        return table;
+    }
+
+    //Marks a state as seen, returns false if it was seen before
+    private static boolean visit(long[] seen, int[] slots, int[] floors, int floorCount, int first, int second, int player) {
+        long bit = (long) pair(slots[first], slots[second]) * floorCount + floors[player];
+        int word = (int) (bit >>> 6);
+        long mask = 1L << (bit & 63);
+        if ((seen[word] & mask) != 0) {
+            return false;
+        }
+        seen[word] |= mask;
+        return true;
+    }
+
+    //Stores a state at the end of a queue, growing the queue if it is full
+    private static long[] push(long[] queue, int size, long state) {
+        if (size == queue.length) {
+            queue = Arrays.copyOf(queue, size * 2);
+        }
+        queue[size] = state;
+        return queue;
+    }
+
+    //packs two box cells, the smaller first, and the cell representing the player into one key
+    private static long state(Level level, int first, int second, int player) {
+        long size = level.getSize();
+        return ((long) second * size + first) * size + player;
+    }
+
+    /**
+     * Estimates the cost to solve a state, optionally with one box moved to another cell
+     * @param boxes cells of the boxes
+     * @param index index of the moved box, or -1 if no box moved
+     * @param destination cell of the moved box
+     * @return twice the estimated number of pushes, since a push costs two, or Heuristic.INFINITE
+     */
+    public int estimate(int[] boxes, int index, int destination) {
+        int n = boxes.length;
+        if (cells.length != n) {
+            cells = new int[n];
+            excess = new int[n * n];
+            paired = new boolean[n];
+        }
+
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            cells[i] = i == index ? destination : boxes[i];
+            if (table.slots[cells[i]] == -1) {
+                return Heuristic.INFINITE;
+            }
+            total += table.nearest[cells[i]];
+            paired[i] = false;
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                char cost = table.costs.getChar(2 * pair(table.slots[cells[i]], table.slots[cells[j]]));
+                if (cost == UNSOLVABLE) {
+                    return Heuristic.INFINITE;
+                }
+                excess[i * n + j] = cost - table.nearest[cells[i]] - table.nearest[cells[j]];
+            }
+        }
+
+        //the pairs with the most extra pushes are taken first, any set of pairs sharing no box stays admissible
+        while (true) {
+            int best = 0, first = -1, second = -1;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (!paired[i] && !paired[j] && excess[i * n + j] > best) {
+                        best = excess[i * n + j];
+                        first = i;
+                        second = j;
+                    }
+                }
+            }
+            if (first == -1) {
+                break;
+            }
+            total += best;
+            paired[first] = true;
+            paired[second] = true;
+        }
+
+        return 2 * total;
+    }
+}
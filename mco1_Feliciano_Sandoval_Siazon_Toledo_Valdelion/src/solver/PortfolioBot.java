@@ -0,0 +1,159 @@
+package solver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several differently configured bots on the same map at the same time and returns the first solution found.
+ * Every bot gets its own child of the search limits, which are cancelled once a solution is found so the other bots
+ * stop at their next expansion. It is used like any other <code>SokoBot</code>, so it can be given to the GUI without
+ * any change.
+ */
+public class PortfolioBot extends SokoBot {
+    private static final long SAMPLE_MILLIS = 50;// time between two looks at the counters of the bots
+
+    private SokoBot[] bots;// the bots racing each other
+    private SokoBot winner;// the bot that found the last solution
+
+    /**
+     * Constructor for a portfolio of A*, weighted A* and greedy best-first search over pushes, and A* over moves
+     */
+    public PortfolioBot() {
+        this(Strategy.ASTAR.createBot(),
+             Strategy.WEIGHTED.createBot(),
+             Strategy.GREEDY.createBot(),
+             Strategy.MOVES.createBot());
+    }
+
+    /**
+     * Constructor for a portfolio of chosen bots
+     * @param bots the bots to run, each one is only used by one thread
+     */
+    public PortfolioBot(SokoBot... bots) {
+        this.bots = bots;
+    }
+
+    /**
+     * Runs every bot of the portfolio and returns the result of the first one that solves the map. A bot that throws
+     * is left out, the portfolio only fails if every bot did
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation shared by every bot
+     * @return how the search ended with the solution or the best partial path
+     * @throws IllegalStateException if every bot threw, with the exception of the first one as the cause
+     */
+    @Override
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+        //one thread per bot even on fewer cores, a pool any smaller would run the bots one after another
+        ExecutorService executor = Executors.newFixedThreadPool(bots.length, runnable -> {
+            Thread thread = new Thread(runnable, "portfolio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<SolverResult> results = new ExecutorCompletionService<SolverResult>(executor);
+        SearchLimits[] botLimits = new SearchLimits[bots.length];
+        Map<Future<SolverResult>, SokoBot> owners = new HashMap<Future<SolverResult>, SokoBot>();
+        SolverResult result = null;
+        ExecutionException failure = null;// first bot that failed, only thrown if every bot failed
+        winner = null;
+
+        for (int i = 0; i < bots.length; i++) {
+            SokoBot bot = bots[i];
+            SearchLimits own = limits.child();
+            botLimits[i] = own;
+            owners.put(results.submit(() -> bot.solve(width, height, mapData, itemsData, own)), bot);
+        }
+
+        try {
+            for (int i = 0; i < bots.length; ) {
+                Future<SolverResult> done = results.poll(SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    publishLeader();
+                    continue;
+                }
+                i++;
+                SolverResult botResult;
+                try {
+                    botResult = done.get();
+                } catch (ExecutionException ex) {
+                    if (failure == null) {
+                        failure = ex;//the other bots may still find a solution
+                    }
+                    continue;
+                }
+
+                if (result == null || botResult.isSolved() || botResult.getStatus() != SolverStatus.UNSOLVABLE) {
+                    result = botResult;//a bot that ran out of time says more than one that found no solution
+                }
+                if (botResult.isSolved()) {
+                    winner = owners.get(done);
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (SearchLimits own : botLimits) {
+                own.cancel();
+            }
+            executor.shutdownNow();
+        }
+
+        if (winner != null && winner.getStats() != null) {
+            publish(winner.getStats());
+        } else {
+            publishLeader();
+        }
+
+        if (result == null && failure != null && !Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Every bot of the portfolio failed", failure.getCause());
+        }
+        if (result == null) {
+            return new SolverResult(SolverStatus.CANCELLED, "", 0, System.nanoTime() - startTime);
+        }
+        return new SolverResult(result.getStatus(), result.getPath(), result.getExpanded(), System.nanoTime() - startTime,
+                                result.getFrontier());
+    }
+
+    //Publishes the counters of the bot that expanded the most nodes so far
+    private void publishLeader() {
+        SearchStats leader = null;
+        for (SokoBot bot : bots) {
+            SearchStats stats = bot.getStats();
+            if (stats != null && (leader == null || stats.getExpanded() > leader.getExpanded())) {
+                leader = stats;
+            }
+        }
+        if (leader != null) {
+            publish(leader);
+        }
+    }
+
+    /**
+     * gets the deadlock detector of the bot that found the last solution
+     * @return deadlock detector or null if no bot found a solution
+     */
+    @Override
+    public DeadlockDetector getDeadlocks() {
+        return winner != null ? winner.getDeadlocks() : null;
+    }
+
+    /**
+     * gets the bot that found the last solution
+     * @return the winning bot or null if no bot found a solution
+     */
+    public SokoBot getWinner() {
+        return winner;
+    }
+}
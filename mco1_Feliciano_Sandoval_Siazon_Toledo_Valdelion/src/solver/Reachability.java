@@ -0,0 +1,269 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Flood fills the squares the player can reach without pushing a box. It is used by the push-level search to
+ * find which boxes can be pushed, to represent the player by the smallest reachable cell, and to rebuild the
+ * walks between pushes once a solution is found. It also finds the pushes of the macro moves, which take one box
+ * several squares at once. The arrays are reused between fills, so one instance should only be used by one search at
+ * a time.
+ */
+public class Reachability {
+    private Level level;
+    private int[] visited;// the fill that last reached each cell
+    private int[] occupied;// the fill that last had a box on each cell
+    private int[] queue;// cells waiting to be visited
+    private int[] cameFrom;// direction index used to reach each cell in a walk
+    private int[] distance;// number of steps of the shortest walk from the start to each cell
+    private int generation;// id of the current fill
+    private int[] pushQueue;// box cell * 4 + direction of the last push of every state waiting in a push search
+    private int[] pushFrom;// state the state of every box cell and direction was reached from in a push search
+    private int[] pushSeen;// the push search that last reached every box cell and direction
+    private int search;// id of the current push search
+
+    /**
+     * Constructor for the reachability of a level
+     * @param level the walls and targets of the map
+     */
+    public Reachability(Level level) {
+        this.level = level;
+        this.visited = new int[level.getSize()];
+        this.occupied = new int[level.getSize()];
+        this.queue = new int[level.getSize()];
+        this.cameFrom = new int[level.getSize()];
+        this.distance = new int[level.getSize()];
+        this.generation = 0;
+        this.pushQueue = new int[level.getSize() * Level.MOVES.length];
+        this.pushFrom = new int[level.getSize() * Level.MOVES.length];
+        this.pushSeen = new int[level.getSize() * Level.MOVES.length];
+        this.search = 0;
+    }
+
+    /**
+     * Marks every square the player can reach from the start without pushing a box
+     * @param boxes cells of the boxes
+     * @param start cell of the player
+     * @return the smallest reachable cell, which is the same for every start within the region
+     */
+    public int fill(int[] boxes, int start) {
+        generation++;
+        for (int box : boxes) {
+            occupied[box] = generation;
+        }
+
+        return spread(start);
+    }
+
+    /**
+     * Marks every square the player can reach after a box was pushed, without building the new box array
+     * @param boxes cells of the boxes before the push
+     * @param from cell of the pushed box before the push
+     * @param to cell of the pushed box after the push
+     * @param start cell of the player
+     * @return the smallest reachable cell, which is the same for every start within the region
+     */
+    public int fill(int[] boxes, int from, int to, int start) {
+        generation++;
+        for (int box : boxes) {
+            occupied[box] = generation;
+        }
+        occupied[from] = 0;
+        occupied[to] = generation;
+
+        return spread(start);
+    }
+
+    //visits every free square connected to the start
+    private int spread(int start) {
+        int head = 0, tail = 0, min = start;
+        queue[tail++] = start;
+        visited[start] = generation;
+        distance[start] = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            min = Math.min(min, cell);
+
+            for (int direction = 0; direction < Level.MOVES.length; direction++) {
+                int next = level.step(cell, direction);
+                if (visited[next] != generation && occupied[next] != generation && !level.isWall(next)) {
+                    visited[next] = generation;
+                    cameFrom[next] = direction;
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Checks if the last fill reached a cell
+     * @param cell cell index
+     * @return true or false
+     */
+    public boolean isReachable(int cell) {
+        return visited[cell] == generation;
+    }
+
+    /**
+     * gets the number of steps from the start of the last fill to a cell it reached
+     * @param cell cell index, it should be checked with <code>isReachable</code> first
+     * @return length of the shortest walk
+     */
+    public int distance(int cell) {
+        return distance[cell];
+    }
+
+    /**
+     * Finds the shortest walk between two cells without pushing a box
+     * @param boxes cells of the boxes
+     * @param from cell of the player
+     * @param to cell to walk to
+     * @return the moves of the walk, or null if the cell cannot be reached
+     */
+    public String walk(int[] boxes, int from, int to) {
+        fill(boxes, from);
+        if (!isReachable(to)) {
+            return null;
+        }
+
+        StringBuilder moves = new StringBuilder();
+        for (int cell = to; cell != from; ) {
+            int direction = cameFrom[cell];
+            moves.append(Level.MOVES[direction]);
+            cell = level.step(cell, Level.opposite(direction));
+        }
+
+        return moves.reverse().toString();
+    }
+
+    /**
+     * Finds the fewest pushes that take one box to a cell while the other boxes stay where they are. The first push
+     * is given and the player is taken to be able to make it
+     * @param boxes cells of the boxes before the first push
+     * @param box cell of the box before the first push
+     * @param direction index of the first push in <code>Level.MOVES</code>
+     * @param to cell the box has to reach
+     * @param room the goal room the box has to stay in after the first push, or Level.NO_ROOM for the whole map
+     * @return direction of every push in order, or null if the box cannot reach the cell
+     */
+    public int[] pushes(int[] boxes, int box, int direction, int to, int room) {
+        int first = level.step(box, direction) * Level.MOVES.length + direction;
+        int head = 0, tail = 0;
+        search++;
+        pushSeen[first] = search;
+        pushFrom[first] = -1;
+        pushQueue[tail++] = first;
+
+        while (head < tail) {
+            int state = pushQueue[head++];
+            int cell = state / Level.MOVES.length;
+            if (cell == to) {
+                return directions(state);
+            }
+
+            //the player stands where the box was before the last push
+            fill(boxes, box, cell, level.step(cell, Level.opposite(state % Level.MOVES.length)));
+            for (int next = 0; next < Level.MOVES.length; next++) {
+                int destination = level.step(cell, next);
+                int reached = destination * Level.MOVES.length + next;
+
+                if (isReachable(level.step(cell, Level.opposite(next))) && !level.isWall(destination) &&
+                    occupied[destination] != generation && !level.isDead(destination) &&
+                    (room == Level.NO_ROOM || level.getRoom(destination) == room) && pushSeen[reached] != search) {
+                    pushSeen[reached] = search;
+                    pushFrom[reached] = state;
+                    pushQueue[tail++] = reached;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    //gets the direction of every push leading to a state of the push search
+    private int[] directions(int state) {
+        int count = 0;
+        for (int current = state; current != -1; current = pushFrom[current]) {
+            count++;
+        }
+
+        int[] directions = new int[count];
+        for (int current = state; current != -1; current = pushFrom[current]) {
+            directions[--count] = current % Level.MOVES.length;
+        }
+        return directions;
+    }
+
+    /**
+     * Rebuilds the full move path of a state found by the push-level search
+     * @param arena the states of the search
+     * @param goal handle of the last state of the path, or StateArena.NONE for an empty path
+     * @param start cell of the player in the root node
+     * @return string representation of the path taken
+     * @throws IllegalStateException if a push on the path cannot be made again, so the states do not form a path
+     */
+    public String path(StateArena arena, int goal, int start) {
+        int depth = 0;
+        for (int state = goal; state != StateArena.NONE && arena.getParent(state) != StateArena.NONE; state = arena.getParent(state)) {
+            depth++;
+        }
+
+        int[] pushes = new int[depth];
+        for (int state = goal; state != StateArena.NONE && arena.getParent(state) != StateArena.NONE; state = arena.getParent(state)) {
+            pushes[--depth] = state;
+        }
+
+        StringBuilder path = new StringBuilder();
+        int player = start;
+        for (int push : pushes) {
+            int[] boxes = arena.getBoxes(arena.getParent(push));
+            int direction = Level.direction(arena.getMove(push));
+            int box = arena.getPushedBox(push);
+            int to = moved(boxes, arena.getBoxes(push));
+
+            //a macro move pushes the box more than once, the pushes are found again with the other boxes in place
+            int[] directions = level.step(box, direction) == to ? new int[] {direction} : pushes(boxes, box, direction, to, Level.NO_ROOM);
+            if (directions == null) {
+                throw new IllegalStateException("The pushes of the macro move to cell " + to + " cannot be found again");
+            }
+            for (int next : directions) {
+                String walk = walk(boxes, player, level.step(box, Level.opposite(next)));
+                if (walk == null) {
+                    throw new IllegalStateException("The player cannot walk from cell " + player + " to push the box on cell " + box);
+                }
+                path.append(walk);
+                path.append(Level.MOVES[next]);
+                player = box;
+                boxes = move(boxes, box, level.step(box, next));
+                box = level.step(box, next);
+            }
+        }
+
+        return path.toString();
+    }
+
+    //gets the cell of the box of a state that is not in the state before it
+    private static int moved(int[] before, int[] after) {
+        for (int cell : after) {
+            if (Arrays.binarySearch(before, cell) < 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    //gets a copy of the box cells with one box moved, the walk does not need them sorted
+    private static int[] move(int[] boxes, int from, int to) {
+        int[] moved = boxes.clone();
+        for (int i = 0; i < moved.length; i++) {
+            if (moved[i] == from) {
+                moved[i] = to;
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,139 @@
+package solver;
+
+/**
+ * The limits a search has to stay within: a deadline, a number of expanded nodes, an amount of used heap, and a
+ * cancellation flag that can be set from another thread. The search calls <code>check</code> once per expansion; it
+ * only reads the flag and compares the node count every time, and only looks at the clock and the heap every few
+ * hundred or thousand calls so the check stays cheap. Only one thread may call <code>check</code> on an instance, so
+ * every thread of a parallel search checks its own <code>child</code> of the shared limits. Any thread may cancel
+ * them.
+ */
+public class SearchLimits {
+    private static final int CLOCK_INTERVAL = 256, MEMORY_INTERVAL = 4096;// calls between two checks
+
+    private SearchLimits parent;// cancelling the parent also cancels this, null if there is none
+    private boolean hasDeadline;
+    private long deadline;// System.nanoTime() the search has to stop at
+    private long maxNodes;// number of nodes the search may expand
+    private long maxMemory;// bytes of heap the search may use
+    private volatile boolean cancelled;
+    private int checks;// number of calls to check, only used to space out the clock and heap checks, not shared
+
+    /**
+     * Constructor for limits that never stop a search unless it is cancelled
+     */
+    public SearchLimits() {
+        this.hasDeadline = false;
+        this.maxNodes = Long.MAX_VALUE;
+        this.maxMemory = Long.MAX_VALUE;
+    }
+
+    /**
+     * Sets a deadline a number of milliseconds from now
+     * @param millis time the search may take
+     * @return these limits
+     */
+    public SearchLimits withTimeLimit(long millis) {
+        this.hasDeadline = true;
+        this.deadline = System.nanoTime() + millis * 1000000L;
+        return this;
+    }
+
+    /**
+     * Sets the number of nodes the search may expand
+     * @param nodes maximum number of expanded nodes
+     * @return these limits
+     */
+    public SearchLimits withNodeLimit(long nodes) {
+        this.maxNodes = nodes;
+        return this;
+    }
+
+    /**
+     * Sets the amount of heap in use the search may reach
+     * @param bytes maximum used heap in bytes
+     * @return these limits
+     */
+    public SearchLimits withMemoryLimit(long bytes) {
+        this.maxMemory = bytes;
+        return this;
+    }
+
+    /**
+     * Creates limits with the same deadline and budgets that are also cancelled when these limits are cancelled,
+     * used to give every search of a portfolio its own cancellation flag
+     * @return new limits
+     */
+    public SearchLimits child() {
+        SearchLimits child = new SearchLimits();
+        child.parent = this;
+        child.hasDeadline = hasDeadline;
+        child.deadline = deadline;
+        child.maxNodes = maxNodes;
+        child.maxMemory = maxMemory;
+        return child;
+    }
+
+    /**
+     * Stops the search using these limits at its next expansion
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if these limits or their parent were cancelled
+     * @return true or false
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Checks if the search has to stop
+     * @param expanded number of nodes expanded so far
+     * @return the reason to stop or null if the search may go on
+     */
+    public SolverStatus check(long expanded) {
+        if (isCancelled()) {
+            return SolverStatus.CANCELLED;
+        }
+        if (expanded >= maxNodes) {
+            return SolverStatus.OUT_OF_BUDGET;
+        }
+
+        checks++;
+        if (checks % CLOCK_INTERVAL == 0 && hasDeadline && System.nanoTime() - deadline > 0) {
+            return SolverStatus.TIMED_OUT;
+        }
+        if (checks % MEMORY_INTERVAL == 0 && maxMemory != Long.MAX_VALUE && usedMemory() > maxMemory) {
+            return SolverStatus.OUT_OF_BUDGET;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks the cancellation and the deadline at once, for a thread that waits for another one instead of expanding
+     * nodes, so it does not get to space out its checks
+     * @return the reason to stop or null if the search may go on
+     */
+    public SolverStatus checkWaiting() {
+        if (isCancelled()) {
+            return SolverStatus.CANCELLED;
+        }
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            return SolverStatus.TIMED_OUT;
+        }
+        return null;
+    }
+
+    /**
+     * gets the number of bytes of heap in use
+     * @return used heap
+     */
+    public static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,13 @@
+package solver;
+
+/**
+ * Gets the counters of a running search. It is called on the thread of the search, every few thousand expansions and
+ * once when the search ends, so it should return quickly and hand the counters to its own thread if needed.
+ */
+public interface SearchListener {
+    /**
+     * Called with a copy of the counters of the search
+     * @param stats counters of the search so far
+     */
+    void progress(SearchStats stats);
+}
@@ -0,0 +1,23 @@
+package solver;
+
+/**
+ * The kind of step the search takes from one node to the next
+ */
+public enum SearchMode {
+    /**
+     * Every node is one step of the player, walking or pushing
+     */
+    MOVES,
+
+    /**
+     * Every node is one push of a box. The player is represented by the smallest cell it can reach, and the
+     * walk between two pushes is only rebuilt for the final path
+     */
+    PUSHES,
+
+    /**
+     * Every node is one pull of a box, used to search backward from the solved map. The player is represented the
+     * same way as for PUSHES, so a pulled state can be compared with a pushed one
+     */
+    PULLS
+}
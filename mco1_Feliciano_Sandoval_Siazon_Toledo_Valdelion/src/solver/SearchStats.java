@@ -0,0 +1,152 @@
+package solver;
+
+/**
+ * Counters of a search. The search thread keeps its own instance and only hands out copies made with
+ * <code>snapshot</code>, every few thousand expansions and once at the end, so reading the counters from another
+ * thread never slows down or races with the search.
+ */
+public class SearchStats {
+    long expanded;// nodes taken from the open list and expanded
+    long generated;// children created
+    long duplicates;// children dropped because their state was already reached as cheaply
+    long pruned;// pushes dropped by the deadlock checks and children with an infinite heuristic cost
+    int open, closed;// number of nodes in the open and closed lists
+    long peakMemory;// most heap in use seen at a snapshot
+    int initialEstimate;// heuristic cost of the root node
+    int solutionCost = -1;// actual cost of the solution, -1 until one is found
+    long elapsed;// nanoseconds since the search started
+
+    /**
+     * Copies the counters, also updating the peak memory
+     * @param elapsed nanoseconds since the search started
+     * @param deadlockPrunes pushes pruned by the deadlock detector, which keeps its own count
+     * @return copy of these counters
+     */
+    SearchStats snapshot(long elapsed, long deadlockPrunes) {
+        peakMemory = Math.max(peakMemory, SearchLimits.usedMemory());
+        this.elapsed = elapsed;
+
+        SearchStats copy = new SearchStats();
+        copy.expanded = expanded;
+        copy.generated = generated;
+        copy.duplicates = duplicates;
+        copy.pruned = pruned + deadlockPrunes;
+        copy.open = open;
+        copy.closed = closed;
+        copy.peakMemory = peakMemory;
+        copy.initialEstimate = initialEstimate;
+        copy.solutionCost = solutionCost;
+        copy.elapsed = elapsed;
+        return copy;
+    }
+
+    /**
+     * Adds the counters of another search to these, used to sum the workers of a parallel search
+     * @param other counters to be added
+     */
+    void add(SearchStats other) {
+        expanded += other.expanded;
+        generated += other.generated;
+        duplicates += other.duplicates;
+        pruned += other.pruned;
+        open += other.open;
+        closed += other.closed;
+        peakMemory = Math.max(peakMemory, other.peakMemory);
+    }
+
+    /**
+     * gets the number of nodes expanded
+     * @return expanded nodes
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * gets the number of children created
+     * @return generated nodes
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * gets the number of children dropped because their state was already reached at the same or a lower cost
+     * @return duplicate nodes
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * gets the number of pushes and children dropped because they can never lead to a solution
+     * @return pruned nodes
+     */
+    public long getPruned() {
+        return pruned;
+    }
+
+    /**
+     * gets the number of nodes in the open list
+     * @return open list size
+     */
+    public int getOpen() {
+        return open;
+    }
+
+    /**
+     * gets the number of nodes in the closed list
+     * @return closed list size
+     */
+    public int getClosed() {
+        return closed;
+    }
+
+    /**
+     * gets the most heap in use seen during the search, which also counts anything else the program keeps
+     * @return bytes of heap
+     */
+    public long getPeakMemory() {
+        return peakMemory;
+    }
+
+    /**
+     * gets the heuristic cost of the root node
+     * @return estimate of the cost of the whole solution
+     */
+    public int getInitialEstimate() {
+        return initialEstimate;
+    }
+
+    /**
+     * gets the actual cost of the solution
+     * @return cost or -1 if no solution was found
+     */
+    public int getSolutionCost() {
+        return solutionCost;
+    }
+
+    /**
+     * gets how close the first estimate was to the cost of the solution, 1 being a perfect heuristic
+     * @return initial estimate divided by the solution cost, or 0 if no solution was found
+     */
+    public double getHeuristicQuality() {
+        return solutionCost > 0 ? (double) initialEstimate / solutionCost : 0;
+    }
+
+    /**
+     * gets the time since the search started
+     * @return nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * gets the average number of nodes expanded per second
+     * @return nodes per second
+     */
+    public double getNodesPerSecond() {
+        return elapsed > 0 ? expanded * 1e9 / elapsed : 0;
+    }
+}
@@ -1,12 +1,50 @@
 package solver;
 
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.io.File;
+import java.util.ArrayList;
 
 public class SokoBot {
+    protected static final String NO_SOLUTION = "\n No solution found";
+    protected static final int SAMPLE_MASK = (1 << 11) - 1;// the counters are published every 2048 expansions
+
+    private SearchMode mode;// whether a node is one player step or one box push
+    private CostCompare order;// decides which node in the open list is expanded first
+    private DeadlockDetector deadlocks;// prunes pushes into deadlocks, kept to read its counters after a search
+    private File patterns;// folder of the pattern databases, null if the bot only uses the matching
+    protected volatile SearchLimits limits;// limits of the running search, used to cancel it from another thread
+    private volatile SearchStats stats;// latest copy of the counters of the search
+    private volatile SearchListener listener;// gets the counters of the search, null if there is none
+    private volatile SolutionListener solutionListener;// gets the improved solutions of the search, null if there is none
+
+    /**
+     * Constructor for a bot that searches box pushes
+     */
+    public SokoBot() {
+        this(SearchMode.PUSHES);
+    }
 
     /**
-     * This method will be using the A* Search using the Manhattan Distance of the boxes and the goal as the heuristic
+     * Constructor for a bot with a chosen search mode
+     * @param mode whether a node is one player step or one box push
+     */
+    public SokoBot(SearchMode mode) {
+        this(mode, 1, 1);
+    }
+
+    /**
+     * Constructor for a bot that weighs the costs of a node, e.g (1, 1) for A*, (1, 3) for weighted A* or (0, 1) for
+     * greedy best-first search
+     * @param mode whether a node is one player step or one box push
+     * @param costWeight weight of the actual cost
+     * @param heuristicWeight weight of the heuristic cost
+     */
+    public SokoBot(SearchMode mode, int costWeight, int heuristicWeight) {
+        this.mode = mode;
+        this.order = new CostCompare(costWeight, heuristicWeight);
+    }
+
+    /**
+     * This method will be using the A* Search using the minimum push distance matching of the boxes and the goals as the heuristic
      * @param width - width of the map
      * @param height - height of the map
      * @param mapData - Immovable parts of the map
@@ -14,53 +52,198 @@ public class SokoBot {
      * @return string representation of the path taken
      */
     public String solveSokobanPuzzle(int width, int height, char[][] mapData, char[][] itemsData) {
-        char[] moves = {'u','d','l','r'};
-        Node node = new Node(height, width, mapData, itemsData);
-        PriorityQueue<Node> openList = new PriorityQueue<Node>(11, new CostCompare());
-        HashSet<Node> closedList = new HashSet<Node>();
+        SolverResult result = solve(width, height, mapData, itemsData, new SearchLimits());
+        return result.isSolved() ? result.getPath() : result.getPath() + NO_SOLUTION;
+    }
 
+    /**
+     * Searches for a solution within the given limits
+     * @param width - width of the map
+     * @param height - height of the map
+     * @param mapData - Immovable parts of the map
+     * @param itemsData - movable parts of the map
+     * @param limits - deadline, budgets and cancellation of the search
+     * @return how the search ended with the solution or the best partial path
+     */
+    public SolverResult solve(int width, int height, char[][] mapData, char[][] itemsData, SearchLimits limits) {
+        long startTime = System.nanoTime();
+        this.limits = limits;
+
+        Level level = LevelCache.shared().get(height, width, mapData);
+        Expander expander = new Expander(level, mode, heuristic(level));
+        deadlocks = expander.getDeadlocks();
+        Node node = expander.root(itemsData);
+        Node closest = node;// expanded node with the lowest heuristic cost, returned if the search stops early
+        int start = node.getPlayer();
+        OpenList openList = new OpenList(order);
+        StateArena closedList = new StateArena(node.getBoxes().length);// expanded states, the nodes themselves are dropped
+        ArrayList<Node> children = new ArrayList<Node>();
+        SearchStats counters = new SearchStats();// only read by this thread, copies are published
+        int frontier = 0;// largest size of the open list
+        SolverResult result = null;
+
+        counters.initialEstimate = node.getHeuristicCost();
+        stats = null;
         openList.add(node);//start the graph (openlist)
 
-        while (!openList.isEmpty()) {//Continue searching while list is not empty
+        while (result == null && !openList.isEmpty()) {//Continue searching while list is not empty
+            SolverStatus stop = limits.check(counters.expanded);
+            if (stop != null) {
+                result = new SolverResult(stop, expander.path(closedList, closest.getHandle(), start), counters.expanded, System.nanoTime() - startTime, frontier);
+                break;
+            }
+            frontier = Math.max(frontier, openList.size());
+
             node = openList.poll();// place head to the current node
 
             if (node.goalFound()) {
-                return node.getPath();//if found, return path
+                counters.solutionCost = node.getActualCost();
+                int goal = closedList.add(node, node.getParent());
+                result = new SolverResult(SolverStatus.SOLVED, expander.path(closedList, goal, start), counters.expanded, System.nanoTime() - startTime, frontier);//if found, return path
+                break;
             }
 
-            closedList.add(node);//add node to closed list
-
-            for (char move : moves) {//iterate through each movers
-                if (node.isMoveValid(move) && !node.isInSimpleDeadlock()) {//check if move is valid and is not in a deadlock state, if not, skip 
-                    Node child = new Node(node, move);//create child
-                    
-                    if (!closedList.contains(child) || (openList.contains(child) && compareInGraph(openList, child) > child.priorityCosts())) {
-                        if (!openList.contains(child)) {
-                            openList.add(child);
-                        } else {
-                            openList.remove(child);
-                            openList.add(child);
-                        }
+            node.setHandle(closedList.add(node, node.getParent()));//add node to closed list
+            counters.expanded++;
+            if (node.getHeuristicCost() < closest.getHeuristicCost()) {
+                closest = node;
+            }
+
+            children.clear();
+            expander.expand(node, children);
+            counters.generated += children.size();
+
+            for (Node child : children) {
+                if (child.isUnsolvable()) {
+                    counters.pruned++;
+                } else if (closedList.contains(child)) {
+                    counters.duplicates++;
+                } else {
+                    Node open = openList.get(child);//the same state may already be waiting in the open list
+
+                    if (open == null) {
+                        openList.add(child);
+                    } else if (child.isCheaperThan(open)) {
+                        openList.replace(open, child);//decrease the key of the open state
+                    } else {
+                        counters.duplicates++;
                     }
-                } 
+                }
+            }
+
+            if ((counters.expanded & SAMPLE_MASK) == 0) {
+                publish(sample(counters, openList, closedList, startTime));
             }
         }
-      return node.getPath() + "\n No solution found";
+
+        if (result == null) {
+            result = new SolverResult(SolverStatus.UNSOLVABLE, expander.path(closedList, closest.getHandle(), start), counters.expanded, System.nanoTime() - startTime, frontier);
+        }
+        publish(sample(counters, openList, closedList, startTime));
+        return result;
     }
 
     /**
-     * Checks the queue if there is a node with the same format and return the priority cost
-     * @param list - priority queue of node
-     * @param node - node being compared
-     * @return priority cost of node in queue
+     * Makes the bot add a pattern database of pairs of boxes to its heuristic, building the database of a level the
+     * first time the level is solved
+     * @param directory folder of the pattern database files
+     * @return this bot
      */
-    private static int compareInGraph(PriorityQueue<Node> list, Node node){
-        
-        for (Object item : list.toArray()) {
-            if (((Node)item).equals(node)) {
-                return ((Node)item).priorityCosts();
-            }
+    public SokoBot withPatterns(File directory) {
+        this.patterns = directory;
+        return this;
+    }
+
+    /**
+     * Creates the heuristic of a search, with the pattern database of the level if the bot uses one. The database is
+     * built within the limits of the running search, if they stop it the heuristic only uses the matching and the
+     * search stops within its next few checks
+     * @param level the walls and targets of the map
+     * @return new heuristic
+     */
+    protected Heuristic heuristic(Level level) {
+        return patterns == null ? new Heuristic(level) : new Heuristic(level, PatternDatabase.open(level, patterns, limits));
+    }
+
+    //Copies the counters of a search with the current sizes of its lists
+    private SearchStats sample(SearchStats counters, OpenList openList, StateArena closedList, long startTime) {
+        counters.open = openList.size();
+        counters.closed = closedList.size();
+        return counters.snapshot(System.nanoTime() - startTime, deadlocks.getTotalPrunes());
+    }
+
+    /**
+     * Makes the counters of the running search readable from other threads and gives them to the listener
+     * @param snapshot copy of the counters
+     */
+    protected void publish(SearchStats snapshot) {
+        stats = snapshot;
+        SearchListener current = listener;
+        if (current != null) {
+            current.progress(snapshot);
+        }
+    }
+
+    /**
+     * Sets the listener that gets the counters of every search of this bot
+     * @param listener listener or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gives a solution found before the end of the search to the solution listener
+     * @param solution the solution with the work done to find it so far
+     */
+    protected void improve(SolverResult solution) {
+        SolutionListener current = solutionListener;
+        if (current != null) {
+            current.solutionFound(solution);
+        }
+    }
+
+    /**
+     * Sets the listener that gets every improved solution of the bots that keep searching after their first
+     * solution. Other bots only return their solution at the end of the search
+     * @param listener listener or null for none
+     */
+    public void setSolutionListener(SolutionListener listener) {
+        this.solutionListener = listener;
+    }
+
+    /**
+     * gets the latest counters of the running or last search, safe to call from any thread
+     * @return counters or null if no search published any yet
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Checks if a path returned by <code>solveSokobanPuzzle</code> is a solution
+     * @param path path returned by the bot
+     * @return true if a solution was found
+     */
+    public static boolean isSolution(String path) {
+        return path != null && !path.endsWith(NO_SOLUTION);
+    }
+
+    /**
+     * Stops the search running on another thread at its next expansion
+     */
+    public void cancel() {
+        SearchLimits current = limits;
+        if (current != null) {
+            current.cancel();
         }
-        return -1;
+    }
+
+    /**
+     * gets the deadlock detector of the last search, which counts the pushes each deadlock rule pruned
+     * @return deadlock detector or null if no search was made
+     */
+    public DeadlockDetector getDeadlocks() {
+        return deadlocks;
     }
 }
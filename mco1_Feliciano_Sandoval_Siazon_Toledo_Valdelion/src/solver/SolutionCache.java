@@ -0,0 +1,502 @@
+package solver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the solutions of the maps solved before on disk, so solving the same map from the same start again, even in
+ * another run of the program, reads the solution instead of searching. A map is told apart by the fingerprint of its
+ * walls and targets and by a hash of the cells of its boxes and player.
+ *
+ * <p>The solutions are appended to a data file and never written over, every record holding its keys and a checksum
+ * of its moves. A memory mapped index of fixed-size slots, with linear probing on the keys, gives the offset of the
+ * record of a map, so a lookup reads one slot and one record. The data file is the only copy that counts: the index
+ * remembers how much of the data file it covers, and the records a crash left out of the index are added to it when
+ * the cache is opened, while a record cut short by a crash is dropped. When a map is solved with fewer moves, the new
+ * record replaces the old one in the index, and once most of the data file is replaced records it is compacted into a
+ * temporary file that is renamed over the old one, so a crash leaves either the old or the new file whole.</p>
+ *
+ * <p>Only one program can open the cache of a folder at a time, and a cache is safe to share between threads.</p>
+ */
+public class SolutionCache implements Closeable {
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("java.io.tmpdir"), "sokobot-solutions");
+
+    private static final int MAGIC = 0x53534f4c, VERSION = 1;// "SSOL" and the version of the file format
+    private static final int DATA_HEADER = 16;// bytes of the magic, version and generation of the data file
+    private static final int INDEX_HEADER = 40;// bytes of the magic, version, generation, covered and replaced bytes, count and capacity
+    private static final int RECORD = 24;// bytes of the fingerprint, start hash, length and checksum of a record
+    private static final int SLOT = 32;// bytes of the fingerprint, start hash, offset and length of a slot
+    private static final int MIN_CAPACITY = 1024;// slots of a new index, always a power of two
+    private static final long MIN_COMPACT = 1 << 16;// bytes of replaced records before compacting is worth it
+
+    private File directory;
+    private FileChannel lockChannel;// keeps the folder to this program while the cache is open
+    private FileLock lock;
+    private FileChannel data;// solutions, in the order they were stored
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;// header then the slots of the index
+    private long generation;// number of times the data file was compacted, the index must have the same one
+    private int count, capacity;// slots in use and slots of the index
+    private long dead;// bytes of records that were replaced by shorter solutions
+    private long compactAfter = MIN_COMPACT;// bytes of replaced records before the next compacting
+    private long hits, misses;// number of lookups that found a solution and that did not
+
+    SolutionCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the cache of a folder, creating its files if there are none and repairing them if a crash left them
+     * behind
+     * @param directory folder of the cache files
+     * @return open cache
+     * @throws IOException if the files cannot be read or written, or another program holds the cache
+     */
+    public static SolutionCache open(File directory) throws IOException {
+        return open(new SolutionCache(directory));
+    }
+
+    //Loads the files of a new cache, closing it if they cannot be used
+    static SolutionCache open(SolutionCache cache) throws IOException {
+        if (!cache.directory.isDirectory() && !cache.directory.mkdirs()) {
+            throw new IOException("Cannot create " + cache.directory);
+        }
+
+        try {
+            cache.load();
+        } catch (IOException ex) {
+            cache.close();
+            throw ex;
+        }
+        return cache;
+    }
+
+    //Locks the folder, drops a compacted file a crash left behind, and checks the index against the data file
+    private void load() throws IOException {
+        lockChannel = new RandomAccessFile(new File(directory, "solutions.lock"), "rw").getChannel();
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            lock = null;//held by another cache of this program
+        }
+        if (lock == null) {
+            throw new IOException("The solution cache in " + directory + " is used by another program");
+        }
+
+        new File(directory, "solutions.dat.tmp").delete();
+        data = new RandomAccessFile(new File(directory, "solutions.dat"), "rw").getChannel();
+        if (data.size() < DATA_HEADER) {
+            data.truncate(0);
+            data.write(header(generation), 0);
+            data.force(true);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+            data.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(directory + " does not hold a solution cache");
+            }
+            generation = header.getLong();
+        }
+
+        indexChannel = new RandomAccessFile(new File(directory, "solutions.idx"), "rw").getChannel();
+        long covered = -1;
+        if (indexChannel.size() >= INDEX_HEADER) {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            capacity = index.getInt(36);
+            if (index.getInt(0) == MAGIC && index.getInt(4) == VERSION && index.getLong(8) == generation &&
+                Integer.bitCount(capacity) == 1 && indexChannel.size() >= INDEX_HEADER + (long) capacity * SLOT &&
+                index.getLong(16) <= data.size()) {
+                covered = index.getLong(16);
+                dead = index.getLong(24);
+                count = index.getInt(32);
+            }
+        }
+
+        if (covered == -1) {
+            rebuild(MIN_CAPACITY);
+        } else {
+            scan(covered);
+        }
+    }
+
+    //gets the header of a data file
+    private static ByteBuffer header(long generation) {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(generation);
+        header.flip();
+        return header;
+    }
+
+    //Makes an empty index with at least a number of slots and adds every record of the data file to it
+    private void rebuild(int slots) throws IOException {
+        //a mapped file cannot be cut shorter on every system, so the index only ever grows
+        while (INDEX_HEADER + (long) slots * SLOT < indexChannel.size()) {
+            slots *= 2;
+        }
+        map(slots);
+        for (int at = INDEX_HEADER; at < INDEX_HEADER + capacity * SLOT; at += SLOT) {
+            index.putLong(at + 16, 0);
+        }
+        count = 0;
+        dead = 0;
+        scan(DATA_HEADER);
+        index.putInt(0, MAGIC);
+    }
+
+    //Maps an index with a number of slots, leaving the slots as they are and the index marked as unfinished until the
+    //caller writes the magic, so a crash while the slots are filled makes the index be built again
+    private void map(int slots) throws IOException {
+        capacity = slots;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER + (long) capacity * SLOT);
+        index.putInt(0, 0);
+        index.putInt(4, VERSION);
+        index.putLong(8, generation);
+        index.putInt(36, capacity);
+    }
+
+    //Doubles the slots of the index and puts every map in use back in its new slot
+    private void grow() throws IOException {
+        long[] fingerprints = new long[count], starts = new long[count], offsets = new long[count];
+        int[] lengths = new int[count];
+        int magic = index.getInt(0), used = 0;
+        index.putInt(0, 0);
+        for (int at = INDEX_HEADER; at < INDEX_HEADER + capacity * SLOT; at += SLOT) {
+            if (index.getLong(at + 16) != 0) {
+                fingerprints[used] = index.getLong(at);
+                starts[used] = index.getLong(at + 8);
+                offsets[used] = index.getLong(at + 16);
+                lengths[used++] = index.getInt(at + 24);
+                index.putLong(at + 16, 0);
+            }
+        }
+
+        map(capacity * 2);
+        for (int i = 0; i < used; i++) {
+            int at = INDEX_HEADER + find(fingerprints[i], starts[i]) * SLOT;
+            index.putLong(at, fingerprints[i]);
+            index.putLong(at + 8, starts[i]);
+            index.putInt(at + 24, lengths[i]);
+            index.putLong(at + 16, offsets[i]);
+        }
+        index.putInt(0, magic);
+    }
+
+    //Adds the records of the data file from an offset on to the index, cutting off a record a crash left unfinished
+    private void scan(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD);
+        long size = data.size();
+
+        while (offset < size) {
+            header.clear();
+            if (size - offset < RECORD || data.read(header, offset) < RECORD) {
+                break;
+            }
+            header.flip();
+            long fingerprint = header.getLong(), start = header.getLong();
+            int length = header.getInt(), checksum = header.getInt();
+            if (length < 0 || size - offset - RECORD < length) {
+                break;
+            }
+
+            String solution = moves(offset, length, checksum);
+            if (solution == null) {
+                break;
+            }
+            index(fingerprint, start, offset, length);
+            offset += RECORD + length;
+        }
+
+        if (offset < size) {
+            data.truncate(offset);
+            data.force(true);
+        }
+        commit(offset);
+    }
+
+    //Writes the counters to the header of the index, the covered bytes last
+    private void commit(long covered) {
+        index.putLong(24, dead);
+        index.putInt(32, count);
+        index.putLong(16, covered);
+    }
+
+    //Reads the moves of a record, or returns null if they do not match their checksum
+    private String moves(long offset, int length, int checksum) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (data.read(bytes, offset + RECORD + bytes.position()) < 0) {
+                return null;
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array());
+        return (int) crc.getValue() == checksum ? new String(bytes.array(), StandardCharsets.US_ASCII) : null;
+    }
+
+    //Points the slot of a map at a record, replacing the record of the map if it is longer
+    private void index(long fingerprint, long start, long offset, int length) throws IOException {
+        if ((count + 1) * 2 > capacity) {
+            grow();
+        }
+
+        int at = INDEX_HEADER + find(fingerprint, start) * SLOT;
+        if (index.getLong(at + 16) == offset + 1) {
+            return;//already indexed before a crash cut off the header
+        } else if (index.getLong(at + 16) == 0) {
+            count++;
+        } else if (index.getInt(at + 24) <= length) {
+            dead += RECORD + length;
+            return;
+        } else {
+            dead += RECORD + index.getInt(at + 24);
+        }
+
+        //the offset is written last, a slot with no offset is empty
+        index.putLong(at, fingerprint);
+        index.putLong(at + 8, start);
+        index.putInt(at + 24, length);
+        index.putLong(at + 16, offset + 1);
+    }
+
+    //gets the slot of a map, or the empty slot where it would go
+    private int find(long fingerprint, long start) {
+        long mixed = (fingerprint ^ Long.rotateLeft(start, 32)) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed >>> 40) & (capacity - 1);
+
+        while (true) {
+            int at = INDEX_HEADER + slot * SLOT;
+            if (index.getLong(at + 16) == 0 || (index.getLong(at) == fingerprint && index.getLong(at + 8) == start)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+
+    /**
+     * gets the hash of the cells of the boxes and the player of a map
+     * @param height height of the map
+     * @param width width of the map
+     * @param itemsData movable parts of the map
+     * @return start hash
+     */
+    public static long start(int height, int width, char[][] itemsData) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                char item = itemsData[i][j];
+                hash = (hash ^ (item == '$' ? 1 : item == '@' ? 2 : 0)) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * gets the solution stored for a map and start
+     * @param width width of the map
+     * @param height height of the map
+     * @param mapData immovable parts of the map
+     * @param itemsData movable parts of the map
+     * @return the moves of the solution, or null if the map was not solved before
+     */
+    public synchronized String get(int width, int height, char[][] mapData, char[][] itemsData) {
+        long fingerprint = Level.fingerprint(height, width, mapData);
+        long start = start(height, width, itemsData);
+        String solution = null;
+
+        if (index != null) {
+            int at = INDEX_HEADER + find(fingerprint, start) * SLOT;
+            long offset = index.getLong(at + 16) - 1;
+            if (offset >= 0) {
+                try {
+                    solution = read(offset, fingerprint, start);
+                } catch (IOException ex) {
+                    solution = null;
+                }
+            }
+        }
+
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return solution;
+    }
+
+    //Reads a record and checks that it belongs to the map, in case the index was written only in part
+    private String read(long offset, long fingerprint, long start) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD);
+        if (data.read(header, offset) < RECORD) {
+            return null;
+        }
+        header.flip();
+        if (header.getLong() != fingerprint || header.getLong() != start) {
+            return null;
+        }
+        int length = header.getInt();
+        return length < 0 ? null : moves(offset, length, header.getInt());
+    }
+
+    /**
+     * Stores the solution of a map and start, unless a solution with as few moves is stored already
+     * @param width width of the map
+     * @param height height of the map
+     * @param mapData immovable parts of the map
+     * @param itemsData movable parts of the map
+     * @param solution the moves of the solution
+     * @throws IOException if the solution cannot be written
+     */
+    public synchronized void put(int width, int height, char[][] mapData, char[][] itemsData, String solution) throws IOException {
+        if (index == null) {
+            throw new IOException("The solution cache is closed");
+        }
+        long fingerprint = Level.fingerprint(height, width, mapData);
+        long start = start(height, width, itemsData);
+
+        int at = INDEX_HEADER + find(fingerprint, start) * SLOT;
+        if (index.getLong(at + 16) != 0 && index.getInt(at + 24) <= solution.length()) {
+            return;
+        }
+
+        byte[] moves = solution.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(moves);
+        ByteBuffer record = ByteBuffer.allocate(RECORD + moves.length);
+        record.putLong(fingerprint).putLong(start).putInt(moves.length).putInt((int) crc.getValue()).put(moves);
+        record.flip();
+
+        //the record is on disk before the index points at it
+        long offset = data.size();
+        while (record.hasRemaining()) {
+            data.write(record, offset + record.position());
+        }
+        data.force(false);
+
+        index(fingerprint, start, offset, moves.length);
+        commit(offset + RECORD + moves.length);
+
+        if (dead > compactAfter && dead * 2 > data.size()) {
+            try {
+                compact();
+                compactAfter = MIN_COMPACT;
+            } catch (IOException ex) {
+                //the solution is stored, the file is only compacted again once twice as many records are replaced
+                compactAfter = dead * 2;
+            }
+        }
+    }
+
+    /**
+     * Writes the records still in use to a new data file which replaces the old one, and builds the index again
+     * @throws IOException if the new file cannot be written, the old file is then kept
+     */
+    public synchronized void compact() throws IOException {
+        if (index == null) {
+            throw new IOException("The solution cache is closed");
+        }
+        File compacted = new File(directory, "solutions.dat.tmp");
+        File file = new File(directory, "solutions.dat");
+
+        boolean moved = false;
+        try {
+            try (FileChannel output = new RandomAccessFile(compacted, "rw").getChannel()) {
+                output.truncate(0);
+                output.write(header(generation + 1), 0);
+                long position = DATA_HEADER;
+                for (int slot = 0; slot < capacity; slot++) {
+                    int at = INDEX_HEADER + slot * SLOT;
+                    long offset = index.getLong(at + 16) - 1;
+                    if (offset >= 0) {
+                        long length = RECORD + index.getInt(at + 24);
+                        for (long copied = 0; copied < length; ) {
+                            copied += data.transferTo(offset + copied, length - copied, output.position(position + copied));
+                        }
+                        position += length;
+                    }
+                }
+                output.force(true);
+            }
+
+            //an open file cannot be replaced on every system, so both files are closed for the rename. A crash after
+            //the rename leaves an index of the old generation, which is built again when the cache is opened
+            data.close();
+            replace(compacted, file);
+            moved = true;
+        } finally {
+            if (!data.isOpen()) {
+                data = new RandomAccessFile(file, "rw").getChannel();
+            }
+            if (!moved) {
+                compacted.delete();//the old file is kept as it is and the cache goes on using it
+            }
+        }
+        generation++;
+        rebuild(capacity);
+    }
+
+    //Renames the compacted file over the data file
+    void replace(File compacted, File file) throws IOException {
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * gets the number of maps with a stored solution
+     * @return size
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * gets the number of lookups that found a solution
+     * @return hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * gets the number of lookups that found no solution
+     * @return misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Writes the index to disk and closes the files, the cache cannot be used afterwards
+     * @throws IOException if a file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (index != null) {
+            index.force();
+            index = null;
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        if (data != null) {
+            data.close();
+        }
+        if (lock != null) {
+            lock.release();
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package solver;
+
+/**
+ * Gets every solution of a search that keeps improving its solution, like <code>AnytimeBot</code>. It is called on
+ * the thread of the search as soon as a solution is found, so it should return quickly and hand the solution to its
+ * own thread if needed.
+ */
+public interface SolutionListener {
+    /**
+     * Called with a solution that is shorter than every solution found before it
+     * @param solution the solution with the work done to find it so far
+     */
+    void solutionFound(SolverResult solution);
+}
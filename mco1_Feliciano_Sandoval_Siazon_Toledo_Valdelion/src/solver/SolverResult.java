@@ -0,0 +1,88 @@
+package solver;
+
+/**
+ * The outcome of a search: how it ended, the path it found, and how much work it took. When the search did not
+ * solve the map, the path leads to the expanded node with the lowest heuristic cost, i.e the closest the search got.
+ */
+public class SolverResult {
+    private SolverStatus status;// how the search ended
+    private String path;// the solution, or the best partial path if the map was not solved
+    private long expanded;// number of nodes expanded
+    private long elapsed;// nanoseconds the search took
+    private long frontier;// largest number of nodes in the open list at once
+
+    /**
+     * Constructor for the result of a search
+     * @param status how the search ended
+     * @param path the solution or the best partial path
+     * @param expanded number of nodes expanded
+     * @param elapsed nanoseconds the search took
+     */
+    public SolverResult(SolverStatus status, String path, long expanded, long elapsed) {
+        this(status, path, expanded, elapsed, 0);
+    }
+
+    /**
+     * Constructor for the result of a search that keeps track of its open list
+     * @param status how the search ended
+     * @param path the solution or the best partial path
+     * @param expanded number of nodes expanded
+     * @param elapsed nanoseconds the search took
+     * @param frontier largest number of nodes in the open list at once
+     */
+    public SolverResult(SolverStatus status, String path, long expanded, long elapsed, long frontier) {
+        this.status = status;
+        this.path = path;
+        this.expanded = expanded;
+        this.elapsed = elapsed;
+        this.frontier = frontier;
+    }
+
+    /**
+     * Checks if the search found a solution
+     * @return true or false
+     */
+    public boolean isSolved() {
+        return status == SolverStatus.SOLVED;
+    }
+
+    /**
+     * gets how the search ended
+     * @return status
+     */
+    public SolverStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * gets the solution, or the best partial path if the map was not solved
+     * @return string representation of the path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * gets the number of nodes expanded
+     * @return expanded nodes
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * gets the time the search took
+     * @return nanoseconds
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * gets the largest number of nodes the open list held at once
+     * @return peak open list size, 0 if the search did not keep track of it
+     */
+    public long getFrontier() {
+        return frontier;
+    }
+}
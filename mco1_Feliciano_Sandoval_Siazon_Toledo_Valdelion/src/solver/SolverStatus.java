@@ -0,0 +1,31 @@
+package solver;
+
+/**
+ * How a search ended
+ */
+public enum SolverStatus {
+    /**
+     * Every box was pushed to a target
+     */
+    SOLVED,
+
+    /**
+     * The deadline passed before a solution was found
+     */
+    TIMED_OUT,
+
+    /**
+     * The search expanded too many nodes or used too much memory
+     */
+    OUT_OF_BUDGET,
+
+    /**
+     * Every reachable state was searched without finding a solution
+     */
+    UNSOLVABLE,
+
+    /**
+     * The search was stopped by another thread
+     */
+    CANCELLED
+}
@@ -0,0 +1,293 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Stores the expanded states of a search in large primitive arrays instead of one <code>Node</code> object per
+ * state. A state is addressed by an int handle and keeps the cell of the player, the cells of its boxes, its actual
+ * cost, the handle of its parent and the move and pushed box that led to it, which is all that is needed to check
+ * if a state was already expanded and to rebuild the path once the goal is found.
+ *
+ * <p>The arrays are split in pages so growing the arena never copies the states already in it, and a hash index of
+ * handles keyed on the Zobrist hash of every state finds a state without creating any object. One arena should
+ * only be used by one thread at a time.</p>
+ */
+public class StateArena {
+    public static final int NONE = -1;// handle of no state, e.g the parent of the root
+
+    private static final int PAGE_BITS = 14, PAGE_SIZE = 1 << PAGE_BITS, PAGE_MASK = PAGE_SIZE - 1;
+
+    private int boxCount;// number of boxes of every state
+    private int[][] players;// cell of the player of every state
+    private int[][] boxes;// boxCount sorted box cells of every state, one after the other
+    private long[][] hashes;// Zobrist hash of every state
+    private int[][] costs;// actual cost of every state
+    private int[][] parents;// handle of the parent of every state
+    private int[][] pushed;// cell the box pushed by the last move was on, -1 if no box was pushed
+    private char[][] moves;// the move performed on the parent to get to every state
+    private int size;// number of states in the arena
+
+    private int[] index;// handle + 1 of the state in every slot, 0 if the slot is empty
+    private int mask;// index.length - 1, the length is always a power of two
+
+    /**
+     * Constructor for an empty arena
+     * @param boxCount number of boxes of every state
+     */
+    public StateArena(int boxCount) {
+        this.boxCount = boxCount;
+        this.players = new int[1][];
+        this.boxes = new int[1][];
+        this.hashes = new long[1][];
+        this.costs = new int[1][];
+        this.parents = new int[1][];
+        this.pushed = new int[1][];
+        this.moves = new char[1][];
+        this.index = new int[1 << 12];
+        this.mask = index.length - 1;
+        this.size = 0;
+    }
+
+    /**
+     * Adds the state of a node, or overwrites the cost and parent of the state if it is already in the arena, as
+     * done when a state is reached again with a lower cost
+     * @param node node holding the state
+     * @param parent handle of the parent state in this arena, or NONE for the root
+     * @return handle of the state
+     */
+    public int add(Node node, int parent) {
+        int handle = insert(node.getHash(), node.getPlayer(), node.getBoxes());
+        set(handle, node.getActualCost(), parent, node.getPushedBox(), node.getMove());
+        return handle;
+    }
+
+    /**
+     * Copies a state of another arena to this one, used to gather the path of a search that used several arenas
+     * @param other arena holding the state
+     * @param handle handle of the state in the other arena
+     * @param parent handle of the parent state in this arena, or NONE for the root
+     * @return handle of the copy
+     */
+    public int copy(StateArena other, int handle, int parent) {
+        long key = other.hashes[page(handle)][offset(handle)];
+        int copy = insert(key, other.getPlayer(handle), other.getBoxes(handle));
+        set(copy, other.getCost(handle), parent, other.getPushedBox(handle), other.getMove(handle));
+        return copy;
+    }
+
+    //gets the handle of a state, adding the state if it is not in the arena yet
+    private int insert(long key, int player, int[] cells) {
+        int slot = find(key, player, cells);
+        int handle = index[slot] - 1;
+
+        if (handle == NONE) {
+            handle = size++;
+            allocate(handle);
+            players[page(handle)][offset(handle)] = player;
+            System.arraycopy(cells, 0, boxes[page(handle)], offset(handle) * boxCount, boxCount);
+            hashes[page(handle)][offset(handle)] = key;
+            index[slot] = handle + 1;
+            if (size * 2 > index.length) {
+                resize();
+            }
+        }
+
+        return handle;
+    }
+
+    //sets how a state was reached
+    private void set(int handle, int cost, int parent, int pushedBox, char move) {
+        int page = page(handle), offset = offset(handle);
+        costs[page][offset] = cost;
+        parents[page][offset] = parent;
+        pushed[page][offset] = pushedBox;
+        moves[page][offset] = move;
+    }
+
+    /**
+     * Finds the state of a node
+     * @param node node holding the state
+     * @return handle of the state or NONE if it is not in the arena
+     */
+    public int find(Node node) {
+        return index[find(node.getHash(), node.getPlayer(), node.getBoxes())] - 1;
+    }
+
+    /**
+     * Checks if the arena has the state of a node
+     * @param node node holding the state
+     * @return true or false
+     */
+    public boolean contains(Node node) {
+        return find(node) != NONE;
+    }
+
+    //gets the slot of a state or the empty slot where it would be placed
+    private int find(long key, int player, int[] cells) {
+        int i = slot(key, mask);
+
+        while (index[i] != 0) {
+            int handle = index[i] - 1;
+            if (hashes[page(handle)][offset(handle)] == key && sameState(handle, player, cells)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    //checks if a state has the given player and box cells
+    private boolean sameState(int handle, int player, int[] cells) {
+        if (players[page(handle)][offset(handle)] != player) {
+            return false;
+        }
+
+        int[] page = boxes[page(handle)];
+        int start = offset(handle) * boxCount;
+        for (int i = 0; i < boxCount; i++) {
+            if (page[start + i] != cells[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Spreads the bits of the hash so that the top bits used as the slot depend on the whole key, one top bit for
+    //every bit of the mask so a table of any size uses all of them. The shift is split in two so that a mask of zero
+    //shifts the key out entirely
+    private static int slot(long key, int mask) {
+        key ^= key >>> 32;
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 32 >>> (32 - Integer.bitCount(mask)));
+    }
+
+    private static int page(int handle) {
+        return handle >>> PAGE_BITS;
+    }
+
+    private static int offset(int handle) {
+        return handle & PAGE_MASK;
+    }
+
+    //Makes sure the page of a handle exists
+    private void allocate(int handle) {
+        int page = page(handle);
+        if (page == players.length) {
+            int pages = players.length * 2;
+            players = Arrays.copyOf(players, pages);
+            boxes = Arrays.copyOf(boxes, pages);
+            hashes = Arrays.copyOf(hashes, pages);
+            costs = Arrays.copyOf(costs, pages);
+            parents = Arrays.copyOf(parents, pages);
+            pushed = Arrays.copyOf(pushed, pages);
+            moves = Arrays.copyOf(moves, pages);
+        }
+        if (players[page] == null) {
+            players[page] = new int[PAGE_SIZE];
+            boxes[page] = new int[PAGE_SIZE * boxCount];
+            hashes[page] = new long[PAGE_SIZE];
+            costs[page] = new int[PAGE_SIZE];
+            parents[page] = new int[PAGE_SIZE];
+            pushed[page] = new int[PAGE_SIZE];
+            moves[page] = new char[PAGE_SIZE];
+        }
+    }
+
+    //Doubles the index and places every handle again
+    private void resize() {
+        index = new int[index.length * 2];
+        mask = index.length - 1;
+
+        for (int handle = 0; handle < size; handle++) {
+            int i = slot(hashes[page(handle)][offset(handle)], mask);
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = handle + 1;
+        }
+    }
+
+    /**
+     * gets the number of states in the arena
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets the cell of the player of a state
+     * @param handle handle of the state
+     * @return cell of the player
+     */
+    public int getPlayer(int handle) {
+        return players[page(handle)][offset(handle)];
+    }
+
+    /**
+     * gets a copy of the sorted box cells of a state
+     * @param handle handle of the state
+     * @return array of box cells
+     */
+    public int[] getBoxes(int handle) {
+        int[] cells = new int[boxCount];
+        System.arraycopy(boxes[page(handle)], offset(handle) * boxCount, cells, 0, boxCount);
+        return cells;
+    }
+
+    /**
+     * gets the actual cost of a state
+     * @param handle handle of the state
+     * @return actual cost
+     */
+    public int getCost(int handle) {
+        return costs[page(handle)][offset(handle)];
+    }
+
+    /**
+     * gets the parent of a state
+     * @param handle handle of the state
+     * @return handle of the parent or NONE for the root
+     */
+    public int getParent(int handle) {
+        return parents[page(handle)][offset(handle)];
+    }
+
+    /**
+     * gets the move performed on the parent to get to a state
+     * @param handle handle of the state
+     * @return direction of the move
+     */
+    public char getMove(int handle) {
+        return moves[page(handle)][offset(handle)];
+    }
+
+    /**
+     * gets the cell the box pushed by the last move of a state was on
+     * @param handle handle of the state
+     * @return cell of the pushed box or -1 if no box was pushed
+     */
+    public int getPushedBox(int handle) {
+        return pushed[page(handle)][offset(handle)];
+    }
+
+    /**
+     * Builds the moves from the root to a state by following the parents back to the root. For a state of the
+     * push-level search it only has the direction of every push, use <code>Reachability.path</code> for the walks
+     * @param handle handle of the last state, or NONE for an empty path
+     * @return string representation of the moves
+     */
+    public String moves(int handle) {
+        int length = 0;
+        for (int state = handle; state != NONE && getParent(state) != NONE; state = getParent(state)) {
+            length++;
+        }
+
+        char[] path = new char[length];
+        for (int state = handle; state != NONE && getParent(state) != NONE; state = getParent(state)) {
+            path[--length] = getMove(state);
+        }
+        return new String(path);
+    }
+}
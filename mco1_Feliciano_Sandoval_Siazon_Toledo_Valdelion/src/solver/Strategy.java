@@ -0,0 +1,85 @@
+package solver;
+
+/**
+ * The ways the bot can search for a solution, chosen when the program is started
+ */
+public enum Strategy {
+    /**
+     * A* over box pushes
+     */
+    ASTAR,
+
+    /**
+     * A* over box pushes with the heuristic cost weighted three times, finding longer solutions faster
+     */
+    WEIGHTED,
+
+    /**
+     * Greedy best-first search over box pushes, only following the heuristic cost
+     */
+    GREEDY,
+
+    /**
+     * A* over single player moves
+     */
+    MOVES,
+
+    /**
+     * Hash distributed A* over box pushes with one worker thread per processor
+     */
+    PARALLEL,
+
+    /**
+     * A*, weighted A*, greedy and move-level A* racing on separate threads, the first solution wins
+     */
+    PORTFOLIO,
+
+    /**
+     * A* over box pushes from the start and over box pulls from the solved map, until the two searches meet
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Iterative deepening A* over box pushes with a transposition cache of a fixed size, using little memory
+     */
+    IDASTAR,
+
+    /**
+     * Weighted A* over box pushes that finds a solution quickly, then lowers the weight to find cheaper ones
+     */
+    ANYTIME,
+
+    /**
+     * A* over box pushes with a pattern database of pairs of boxes added to the heuristic, kept on disk per level
+     */
+    PATTERNS;
+
+    /**
+     * Creates a bot that searches with this strategy
+     * @return new bot
+     */
+    public SokoBot createBot() {
+        switch (this) {
+            case WEIGHTED:
+                return new SokoBot(SearchMode.PUSHES, 1, 3);
+            case GREEDY:
+                return new SokoBot(SearchMode.PUSHES, 0, 1);
+            case MOVES:
+                return new SokoBot(SearchMode.MOVES);
+            case PARALLEL:
+                return new ParallelBot();
+            case PORTFOLIO:
+                return new PortfolioBot();
+            case BIDIRECTIONAL:
+                return new BidirectionalBot();
+            case IDASTAR:
+                return new IdaStarBot();
+            case ANYTIME:
+                return new AnytimeBot();
+            case PATTERNS:
+                return new SokoBot().withPatterns(PatternDatabase.DEFAULT_DIRECTORY);
+            default:
+                return new SokoBot();
+        }
+    }
+}
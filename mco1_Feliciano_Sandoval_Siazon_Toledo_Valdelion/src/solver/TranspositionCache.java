@@ -0,0 +1,113 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache of the lowest actual cost each state was reached with, keyed on the 64-bit Zobrist hash of the
+ * state. Unlike <code>TranspositionTable</code> it never grows, so a search using it takes the same memory however
+ * long it runs, at the price of forgetting states. Only the hash is kept, so two states with the same hash are seen
+ * as one, which is rare enough with 64 bits to be ignored.
+ *
+ * <p>Every hash maps to a bucket of two entries. The first keeps the entry with the lowest cost, since a state near
+ * the root cuts off the largest part of the search, and the second is always replaced. Entries of an older round of
+ * an iterative search are replaced first.</p>
+ */
+public class TranspositionCache {
+    public static final int MISSING = -1;// cost returned for a state that is not in the cache
+
+    private long[] keys;// Zobrist hash of the state of every entry
+    private int[] costs;// lowest actual cost the state was reached with, MISSING if the entry is empty
+    private int[] rounds;// round of the search the entry was stored in
+    private int mask;// number of buckets - 1, always a power of two
+    private int size;// number of entries in use
+
+    /**
+     * Constructor for an empty cache
+     * @param entries number of entries, rounded up to a power of two
+     */
+    public TranspositionCache(int entries) {
+        int buckets = Integer.highestOneBit(Math.max(entries, 4) - 1);
+        this.keys = new long[buckets * 2];
+        this.costs = new int[buckets * 2];
+        this.rounds = new int[buckets * 2];
+        this.mask = buckets - 1;
+        Arrays.fill(costs, MISSING);
+    }
+
+    //Spreads the bits of the hash so that the bucket depends on the whole key, taken from one top bit for every bit
+    //of the mask
+    private int bucket(long key) {
+        key ^= key >>> 32;
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 32 >>> (32 - Integer.bitCount(mask))) * 2;
+    }
+
+    /**
+     * gets the lowest cost a state was reached with in a round
+     * @param key Zobrist hash of the state
+     * @param round round of the search
+     * @return cost or MISSING if the state is not cached for this round
+     */
+    public int get(long key, int round) {
+        int i = bucket(key);
+        for (int j = i; j < i + 2; j++) {
+            if (costs[j] != MISSING && keys[j] == key && rounds[j] == round) {
+                return costs[j];
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Stores the cost a state was reached with, keeping the lower cost if the state is already cached for the round
+     * @param key Zobrist hash of the state
+     * @param cost actual cost of the state
+     * @param round round of the search
+     */
+    public void put(long key, int cost, int round) {
+        int i = bucket(key);
+
+        for (int j = i; j < i + 2; j++) {
+            if (costs[j] != MISSING && keys[j] == key) {
+                if (rounds[j] != round || cost < costs[j]) {
+                    costs[j] = cost;
+                    rounds[j] = round;
+                }
+                return;
+            }
+        }
+
+        //the first entry is only replaced by a cheaper state or when it is empty or from an older round
+        int j = costs[i] == MISSING || rounds[i] != round || cost < costs[i] ? i : i + 1;
+        if (j == i && costs[i] != MISSING && rounds[i] == round) {
+            store(i + 1, keys[i], costs[i], rounds[i]);//the replaced entry moves to the always-replace entry
+        }
+        store(j, key, cost, round);
+    }
+
+    //writes an entry
+    private void store(int j, long key, int cost, int round) {
+        if (costs[j] == MISSING) {
+            size++;
+        }
+        keys[j] = key;
+        costs[j] = cost;
+        rounds[j] = round;
+    }
+
+    /**
+     * gets the number of entries in use
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets the number of entries the cache can hold
+     * @return capacity
+     */
+    public int capacity() {
+        return costs.length;
+    }
+}
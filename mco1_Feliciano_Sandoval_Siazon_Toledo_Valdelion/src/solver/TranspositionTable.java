@@ -0,0 +1,161 @@
+package solver;
+
+/**
+ * An open-addressing hash table of nodes keyed on their 64-bit Zobrist hash. It is used in place of a
+ * <code>HashSet</code> for the closed list so that a lookup only compares a long before comparing the
+ * player and box cells of the few nodes that share a slot. Collisions are resolved with linear probing.
+ */
+public class TranspositionTable {
+    private static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private long[] keys;// Zobrist hash of the node in every slot
+    private Node[] nodes;// the node in every slot, null if the slot is empty
+    private int size;// number of nodes in the table
+    private int mask;// capacity - 1, the capacity is always a power of two
+
+    /**
+     * Constructor for an empty table
+     */
+    public TranspositionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty table
+     * @param capacity expected number of nodes, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        this.keys = new long[slots];
+        this.nodes = new Node[slots];
+        this.mask = slots - 1;
+        this.size = 0;
+    }
+
+    //Spreads the bits of the hash so that the top bits used as the slot depend on the whole key, one top bit for
+    //every bit of the mask so a table of any size uses all of them. The shift is split in two so that a mask of zero
+    //shifts the key out entirely
+    private static int slot(long key, int mask) {
+        key ^= key >>> 32;
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 32 >>> (32 - Integer.bitCount(mask)));
+    }
+
+    //gets the slot of the node or the empty slot where it would be placed
+    private int find(Node node, long key) {
+        int i = slot(key, mask);
+
+        while (nodes[i] != null) {
+            if (keys[i] == key && nodes[i].equals(node)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    /**
+     * Adds a node to the table if there is no equal node in it yet
+     * @param node node to be added
+     * @return true if the node was added, false if an equal node is already in the table
+     */
+    public boolean add(Node node) {
+        long key = node.getHash();
+        int i = find(node, key);
+
+        if (nodes[i] != null) {
+            return false;
+        }
+
+        keys[i] = key;
+        nodes[i] = node;
+        size++;
+
+        if (size * 2 > nodes.length) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the table has a node with the same state
+     * @param node node to be checked
+     * @return true or false
+     */
+    public boolean contains(Node node) {
+        return get(node) != null;
+    }
+
+    /**
+     * gets the node in the table with the same state
+     * @param node node to be looked for
+     * @return the equal node or null if there is none
+     */
+    public Node get(Node node) {
+        return nodes[find(node, node.getHash())];
+    }
+
+    /**
+     * Removes the node with the same state from the table
+     * @param node node to be removed
+     * @return the removed node or null if there was none
+     */
+    public Node remove(Node node) {
+        int i = find(node, node.getHash());
+        Node removed = nodes[i];
+
+        if (removed == null) {
+            return null;
+        }
+
+        //shift back the nodes after the hole that would no longer be reachable from their own slot
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (nodes[j] == null) {
+                break;
+            }
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                nodes[i] = nodes[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        nodes[i] = null;
+        size--;
+
+        return removed;
+    }
+
+    /**
+     * gets the number of nodes in the table
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    //Doubles the capacity and places every node again
+    private void resize() {
+        long[] oldKeys = keys;
+        Node[] oldNodes = nodes;
+
+        keys = new long[oldNodes.length * 2];
+        nodes = new Node[oldNodes.length * 2];
+        mask = nodes.length - 1;
+
+        for (int j = 0; j < oldNodes.length; j++) {
+            if (oldNodes[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (nodes[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                nodes[i] = oldNodes[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,3 @@
+del /s /q *.class
+javac test/solver/SolutionCacheTest.java -cp src;test
+java -classpath src;test solver.SolutionCacheTest
\ No newline at end of file
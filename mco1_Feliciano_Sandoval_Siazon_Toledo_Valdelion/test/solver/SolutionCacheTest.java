@@ -0,0 +1,149 @@
+package solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Checks that a solution cache stays usable and keeps every solution when compacting it fails or succeeds. Run with
+ * test.bat from the project folder, it prints the checks that failed and exits with 1 if any did.
+ */
+public class SolutionCacheTest {
+    private static int failures = 0;
+
+    /**
+     * A cache whose compacted file can never replace its data file
+     */
+    private static class FailingCache extends SolutionCache {
+        private FailingCache(File directory) {
+            super(directory);
+        }
+
+        @Override
+        void replace(File compacted, File file) throws IOException {
+            throw new IOException("rename refused");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        compactWithFailedRename();
+        compactWithRename();
+
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    //A failed rename keeps the old file open and drops the compacted file
+    private static void compactWithFailedRename() throws IOException {
+        File directory = emptyDirectory("failed");
+        char[][] map = map();
+
+        SolutionCache cache = SolutionCache.open(new FailingCache(directory));
+        fill(cache, map, 40);
+        fill(cache, map, 20);//every record replaced, so compacting would halve the file
+        long size = new File(directory, "solutions.dat").length();
+
+        try {
+            cache.compact();
+            check(false, "compact should fail when the rename fails");
+        } catch (IOException ex) {
+            check(ex.getMessage().equals("rename refused"), "compact should throw the error of the rename");
+        }
+        check(!new File(directory, "solutions.dat.tmp").exists(), "the compacted file should be deleted");
+        check(new File(directory, "solutions.dat").length() == size, "the data file should be kept as it was");
+        checkSolutions(cache, map, 20, "after a failed compact");
+
+        cache.put(5, 5, map, items(1000), moves(7));
+        check(moves(7).equals(cache.get(5, 5, map, items(1000))), "a solution should be stored after a failed compact");
+        cache.close();
+
+        cache = SolutionCache.open(directory);
+        checkSolutions(cache, map, 20, "after opening again");
+        cache.close();
+    }
+
+    //A compacted file replaces the data file and keeps every solution
+    private static void compactWithRename() throws IOException {
+        File directory = emptyDirectory("compacted");
+        char[][] map = map();
+
+        SolutionCache cache = SolutionCache.open(directory);
+        fill(cache, map, 40);
+        fill(cache, map, 20);
+        long size = new File(directory, "solutions.dat").length();
+
+        cache.compact();
+        check(new File(directory, "solutions.dat").length() < size, "compact should shrink the data file");
+        checkSolutions(cache, map, 20, "after compacting");
+        cache.close();
+
+        cache = SolutionCache.open(directory);
+        checkSolutions(cache, map, 20, "after compacting and opening again");
+        cache.close();
+    }
+
+    private static File emptyDirectory(String name) {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "sokobot-test-" + name);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        return directory;
+    }
+
+    //Stores a solution of a given length for every start
+    private static void fill(SolutionCache cache, char[][] map, int length) throws IOException {
+        for (int start = 0; start < 100; start++) {
+            cache.put(5, 5, map, items(start), moves(length + start % 3));
+        }
+    }
+
+    private static void checkSolutions(SolutionCache cache, char[][] map, int length, String when) {
+        for (int start = 0; start < 100; start++) {
+            String solution = cache.get(5, 5, map, items(start));
+            if (!moves(length + start % 3).equals(solution)) {
+                check(false, "start " + start + " should have its shortest solution " + when + ", got " + solution);
+                return;
+            }
+        }
+    }
+
+    private static char[][] map() {
+        char[][] map = new char[5][5];
+        for (char[] row : map) {
+            Arrays.fill(row, ' ');
+        }
+        return map;
+    }
+
+    //A different set of boxes for every start, read as the bits of the start
+    private static char[][] items(int start) {
+        char[][] items = map();
+        for (int bit = 0; bit < 25; bit++) {
+            if ((start >> bit & 1) != 0) {
+                items[bit / 5][bit % 5] = '$';
+            }
+        }
+        return items;
+    }
+
+    private static String moves(int length) {
+        char[] moves = new char[length];
+        for (int i = 0; i < length; i++) {
+            moves[i] = "udlr".charAt(i % 4);
+        }
+        return new String(moves);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + message);
+        }
+    }
+}